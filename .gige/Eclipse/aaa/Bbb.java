@@ -0,0 +1,2 @@
+package aaa;
+public class Bbb {}
\ No newline at end of file
@@ -0,0 +1 @@
+package aaa.bbb.ccc;public class Ddd {}
\ No newline at end of file
@@ -0,0 +1,3 @@
+package z;
+@MyAnon
+public class MyCls {}
\ No newline at end of file
@@ -0,0 +1 @@
+package test.on.the;@io.gige.TestAnnotation public class Fly {}
\ No newline at end of file
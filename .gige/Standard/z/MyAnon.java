@@ -0,0 +1,2 @@
+package z;
+public @interface MyAnon { long value() default Long.MAX_VALUE;}
\ No newline at end of file
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.gige.CompilationResult;
+import io.gige.CompilerContext;
+import io.gige.Compilers;
+import io.gige.Unit;
+
+/**
+ * {@link CompilerContext#compile()} without processors.
+ *
+ * @author taichi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CompileBenchmark {
+
+  @Param({"Standard", "Eclipse"})
+  String compiler;
+
+  @Param({"1", "10", "1000"})
+  int size;
+
+  @Param({"OnTheFly", "File"})
+  String input;
+
+  Path root;
+
+  Unit[] units;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    if ("File".equals(this.input)) {
+      this.root = Files.createTempDirectory("gige-bench-");
+      this.units = Sources.files(this.root, this.size);
+    } else {
+      this.units = Sources.onTheFly(this.size);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Sources.delete(this.root);
+  }
+
+  @Benchmark
+  public boolean compile() throws Exception {
+    try (CompilerContext context = new CompilerContext(Compilers.Type.valueOf(this.compiler))) {
+      if (this.root != null) {
+        context.setSourcePath(this.root.toFile());
+      }
+      CompilationResult result = context.inMemory().set(this.units).compile();
+      return result.success();
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.gige.CompilerContext;
+import io.gige.Compilers;
+import io.gige.ProcessorContext;
+import io.gige.Unit;
+
+/**
+ * {@link ProcessorContext} lookups. a compilation is suspended in its assertion block while the
+ * benchmark borrows the context.
+ *
+ * @author taichi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LookupBenchmark {
+
+  @Param({"Standard", "Eclipse"})
+  String compiler;
+
+  CompilerContext context;
+
+  ProcessorContext processor;
+
+  TypeElement element;
+
+  CountDownLatch release;
+
+  Thread thread;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.context =
+        new CompilerContext(Compilers.Type.valueOf(this.compiler))
+            .inMemory()
+            .set(Unit.of(Sources.className(0), Sources.of(0)));
+    this.release = new CountDownLatch(1);
+    CompletableFuture<ProcessorContext> captured = new CompletableFuture<>();
+    this.thread =
+        new Thread(
+            () -> {
+              try {
+                this.context.compile(
+                    ctx -> {
+                      captured.complete(ctx);
+                      this.release.await();
+                    });
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              } finally {
+                captured.completeExceptionally(new IllegalStateException("not suspended"));
+              }
+            },
+            "gige-lookup");
+    this.thread.setDaemon(true);
+    this.thread.start();
+    this.processor = captured.get();
+    this.element = this.processor.getTypeElement(ArrayList.class).orElseThrow();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    this.release.countDown();
+    this.thread.join();
+    this.context.close();
+  }
+
+  @Benchmark
+  public Optional<TypeElement> getTypeElement() {
+    return this.processor.getTypeElement(ArrayList.class);
+  }
+
+  @Benchmark
+  public Optional<ExecutableElement> getMethod() {
+    return this.processor.getMethod(this.element, "add", int.class, Object.class);
+  }
+
+  @Benchmark
+  public Optional<ExecutableElement> findMethod() {
+    // declared at the top of the hierarchy
+    return this.processor.findMethod(ArrayList.class, "wait", long.class);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.gige.CompilerContext;
+import io.gige.Compilers;
+import io.gige.Unit;
+
+/**
+ * {@link CompilerContext#compile()} with a processor which does nothing or which visits every
+ * member and generates a companion source for each type.
+ *
+ * @author taichi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProcessorBenchmark {
+
+  @Param({"Standard", "Eclipse"})
+  String compiler;
+
+  @Param({"light", "heavy"})
+  String workload;
+
+  @Param({"100"})
+  int size;
+
+  Unit[] units;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.units = Sources.onTheFly(this.size);
+  }
+
+  @Benchmark
+  public boolean compile() throws Exception {
+    Processor processor =
+        "heavy".equals(this.workload) ? new HeavyProcessor() : new LightProcessor();
+    try (CompilerContext context = new CompilerContext(Compilers.Type.valueOf(this.compiler))) {
+      return context.inMemory().set(this.units).set(processor).compile().success();
+    }
+  }
+
+  @SupportedAnnotationTypes("*")
+  public static class LightProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latest();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      return false;
+    }
+  }
+
+  @SupportedAnnotationTypes("*")
+  public static class HeavyProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latest();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      var elements = this.processingEnv.getElementUtils();
+      for (TypeElement te : ElementFilter.typesIn(roundEnv.getRootElements())) {
+        String name = te.getQualifiedName().toString();
+        if (name.endsWith("Companion")) {
+          continue;
+        }
+        StringBuilder body = new StringBuilder();
+        for (Element e : elements.getAllMembers(te)) {
+          body.append("  // ").append(e.getKind()).append(' ').append(e).append('\n');
+        }
+        try {
+          var file = this.processingEnv.getFiler().createSourceFile(name + "Companion", te);
+          try (Writer w = file.openWriter()) {
+            w.write("package " + elements.getPackageOf(te).getQualifiedName() + ";\n");
+            w.write("public class " + te.getSimpleName() + "Companion {\n");
+            w.write(body.toString());
+            w.write("}\n");
+          }
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import io.gige.Unit;
+
+/**
+ * synthetic compilation units.
+ *
+ * @author taichi
+ */
+class Sources {
+
+  static final String PACKAGE = "bench";
+
+  static String className(int index) {
+    return PACKAGE + ".C" + index;
+  }
+
+  static String of(int index) {
+    String name = "C" + index;
+    String parent = index == 0 ? "" : " extends C" + (index - 1);
+    return "package "
+        + PACKAGE
+        + ";\n"
+        + "public class "
+        + name
+        + parent
+        + " {\n"
+        + "  private int value"
+        + index
+        + ";\n"
+        + "  public int getValue"
+        + index
+        + "() { return this.value"
+        + index
+        + "; }\n"
+        + "  public void setValue"
+        + index
+        + "(int value) { this.value"
+        + index
+        + " = value; }\n"
+        + "  @Override public String toString() { return \""
+        + name
+        + "\" + this.value"
+        + index
+        + "; }\n"
+        + "}\n";
+  }
+
+  static Unit[] onTheFly(int size) {
+    List<Unit> units = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      units.add(Unit.of(className(i), of(i)));
+    }
+    return units.toArray(Unit[]::new);
+  }
+
+  /** writes sources under the root, which becomes the source path of {@link Unit#of(String)}. */
+  static Unit[] files(Path root, int size) throws IOException {
+    Path dir = Files.createDirectories(root.resolve(PACKAGE));
+    List<Unit> units = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Files.writeString(dir.resolve("C" + i + ".java"), of(i), StandardCharsets.UTF_8);
+      units.add(Unit.of(className(i)));
+    }
+    return units.toArray(Unit[]::new);
+  }
+
+  static void delete(Path root) throws IOException {
+    if (root != null && Files.exists(root)) {
+      try (var files = Files.walk(root)) {
+        files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+}
@@ -1,11 +1,14 @@
 package io.gige;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
 import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic.Kind;
 import javax.tools.StandardJavaFileManager;
@@ -19,9 +22,15 @@ public class AssertionProcessor extends AbstractProcessor {
 
   Error error;
 
-  AssertionProcessor(StandardJavaFileManager manager, AssertionBlock assertions) {
+  final Timings timings;
+
+  /** root elements of the previous rounds. */
+  final List<Element> rootElements = new ArrayList<>();
+
+  AssertionProcessor(StandardJavaFileManager manager, AssertionBlock assertions, Timings timings) {
     this.manager = manager;
     this.assertions = assertions;
+    this.timings = timings;
   }
 
   @Override
@@ -32,16 +41,23 @@ public class AssertionProcessor extends AbstractProcessor {
   @Override
   public boolean process(
       final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    this.rootElements.addAll(roundEnv.getRootElements());
     if (roundEnv.processingOver()) {
-      var context = new ProcessorContext(this.manager, this.processingEnv, roundEnv);
+      var context =
+          new ProcessorContext(this.manager, this.processingEnv, roundEnv, this.rootElements);
+      long start = System.nanoTime();
       try {
         this.assertions.apply(context);
       } catch (Exception e) {
         this.processingEnv.getMessager().printMessage(Kind.ERROR, e.getMessage());
       } catch (Error e) {
         this.error = e;
+      } finally {
+        this.timings.add(Timings.Phase.ASSERTION, System.nanoTime() - start);
       }
     }
+    // this runs last in every round.
+    this.timings.nextRound();
     return false;
   }
 
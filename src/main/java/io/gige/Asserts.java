@@ -22,7 +22,8 @@ import java.io.UncheckedIOException;
 
 import org.junit.jupiter.api.Assertions;
 
-import io.gige.util.Zipper;
+import io.gige.util.LineDiff;
+import io.gige.util.SourceComparator;
 
 /** @author taichi */
 public interface Asserts {
@@ -36,16 +37,20 @@ public interface Asserts {
     }
   }
 
+  /** fails with the unified diff, including extra lines at the end of either input. */
   static void assertEqualsByLine(final BufferedReader expected, final BufferedReader actual)
       throws IOException {
-    int[] lineNo = {0};
-    Zipper.of(
-        expected.lines(),
-        actual.lines(),
-        (l, r) -> {
-          Assertions.assertEquals("line:" + lineNo[0], l, r);
-          lineNo[0]++;
-          return false;
-        });
+    LineDiff.Result diff = new LineDiff().diff(expected, actual);
+    if (diff.isEmpty() == false) {
+      Assertions.fail("sources differ\n" + diff);
+    }
+  }
+
+  /** fails with the unified diff of normalized sources. */
+  static void assertEqualsByLine(
+      final CharSequence expected, final CharSequence actual, SourceComparator comparator) {
+    if (comparator.matches(expected, actual) == false) {
+      Assertions.fail("sources differ\n" + comparator.diff(expected, actual));
+    }
   }
 }
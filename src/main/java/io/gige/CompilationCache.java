@@ -0,0 +1,354 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+
+import org.junit.jupiter.api.Assertions;
+
+import io.gige.internal.CachedDiagnostic;
+
+/**
+ * persistent cache of compilation results, keyed by a digest of everything which affects the
+ * compilation.
+ *
+ * <p>only {@link CompilerContext#compile()} uses this cache, because a hit does not run the
+ * compiler and no {@link ProcessorContext} is available. processors are not invoked on a hit,
+ * so assert on {@link CompilationResult} and its output files only.
+ *
+ * <p>configuration of processors is unknown, so compilations are cached only when every processor
+ * implements {@link Keyed}. classpath directories and the locations of processor classes are
+ * stamped file by file, so changes of helper classes and resources invalidate entries too.
+ *
+ * <p>only SOURCE_OUTPUT contents are stored, which are what {@link CompilationResult} reads. files
+ * written to CLASS_OUTPUT, such as class files and resources, are not restored on a hit.
+ *
+ * @author taichi
+ */
+public class CompilationCache {
+
+  static final int MAGIC = 0x67696765;
+
+  static final int VERSION = 3;
+
+  static final String SUFFIX = ".bin";
+
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  final Path directory;
+
+  final long maxBytes;
+
+  /** processors which identify their own configuration. */
+  public interface Keyed {
+
+    /** @return a key of everything which affects outputs, other than the processor class. */
+    String getCacheKey();
+  }
+
+  public CompilationCache() {
+    this(Paths.get(".gige", "cache"), DEFAULT_MAX_BYTES);
+  }
+
+  public CompilationCache(Path directory, long maxBytes) {
+    Assertions.assertNotNull(directory);
+    Assertions.assertTrue(0 < maxBytes);
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+  }
+
+  /** @return {@code null} if the compilation can not be identified. */
+  public String digest(CompilerContext context, List<JavaFileObject> units) throws IOException {
+    List<Processor> processors = new ArrayList<>(context.processors);
+    for (Supplier<? extends Processor> f : context.factories) {
+      processors.add(f.get());
+    }
+    if (processors.stream().allMatch(Keyed.class::isInstance) == false) {
+      return null;
+    }
+    MessageDigest md = newDigest();
+    update(md, String.valueOf(VERSION));
+    // toString() of lambdas contains an identity hash code.
+    update(
+        md,
+        context.provider instanceof Compilers.Type
+            ? ((Compilers.Type) context.provider).name()
+            : context.provider.get().getClass().getName());
+    update(md, System.getProperty("java.version"));
+    update(md, context.getLocale().toString());
+    update(md, context.getCharset().name());
+    update(md, String.valueOf(context.isInMemory()));
+    context.getOptions().forEach(s -> update(md, s));
+    for (String cp : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+      this.stamp(md, Paths.get(cp), true);
+    }
+    for (File f : context.sourcePaths) {
+      this.stamp(md, f.toPath(), true);
+    }
+    for (JavaFileObject jfo : units) {
+      String path = jfo.toUri().getPath();
+      update(md, path == null ? jfo.getName() : path);
+      update(md, jfo.getCharContent(true).toString());
+    }
+    for (Processor p : processors) {
+      this.stamp(md, p.getClass());
+      update(md, ((Keyed) p).getCacheKey());
+    }
+    return toHex(md.digest());
+  }
+
+  protected void stamp(MessageDigest md, Path path, boolean walk) throws IOException {
+    update(md, path.toAbsolutePath().toString());
+    if (Files.isRegularFile(path)) {
+      update(md, Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis());
+    } else if (walk && Files.isDirectory(path)) {
+      try (Stream<Path> files = Files.walk(path)) {
+        List<String> stamps =
+            files
+                .filter(Files::isRegularFile)
+                .map(
+                    p -> {
+                      try {
+                        BasicFileAttributes attrs =
+                            Files.readAttributes(p, BasicFileAttributes.class);
+                        return path.relativize(p)
+                            + ":"
+                            + attrs.size()
+                            + ":"
+                            + attrs.lastModifiedTime().toMillis();
+                      } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                      }
+                    })
+                .sorted()
+                .collect(Collectors.toList());
+        stamps.forEach(s -> update(md, s));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  protected void stamp(MessageDigest md, Class<?> clazz) throws IOException {
+    update(md, clazz.getName());
+    CodeSource cs = clazz.getProtectionDomain().getCodeSource();
+    if (cs != null && cs.getLocation() != null && "file".equals(cs.getLocation().getProtocol())) {
+      try {
+        // helper classes and resources of the processor are there too.
+        this.stamp(md, Paths.get(cs.getLocation().toURI()), true);
+        return;
+      } catch (URISyntaxException ignore) {
+        // stamps the class itself
+      }
+    }
+    String name = clazz.getName();
+    String resource = name.substring(name.lastIndexOf('.') + 1) + ".class";
+    try (InputStream in = clazz.getResourceAsStream(resource)) {
+      if (in != null) {
+        md.update(in.readAllBytes());
+      }
+    }
+  }
+
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static void update(MessageDigest md, String s) {
+    md.update(s.getBytes(StandardCharsets.UTF_8));
+    md.update((byte) 0);
+  }
+
+  static String toHex(byte[] bytes) {
+    StringBuilder stb = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      stb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return stb.toString();
+  }
+
+  protected Path toPath(String key) {
+    return this.directory.resolve(key + SUFFIX);
+  }
+
+  public Optional<CompilationResult> find(
+      String key, Charset charset, DiagnosticListener<JavaFileObject> listener) {
+    return this.find(key, charset, listener, new Timings());
+  }
+
+  Optional<CompilationResult> find(
+      String key,
+      Charset charset,
+      DiagnosticListener<JavaFileObject> listener,
+      Timings timings) {
+    Path path = this.toPath(key);
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return Optional.empty();
+      }
+      boolean success = in.readBoolean();
+      List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+      for (int i = 0, size = in.readInt(); i < size; i++) {
+        diagnostics.add(CachedDiagnostic.read(in));
+      }
+      Map<String, byte[]> outputs = new LinkedHashMap<>();
+      for (int i = 0, size = in.readInt(); i < size; i++) {
+        String name = CachedDiagnostic.readString(in);
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        outputs.put(name, bytes);
+      }
+      // least recently used goes first.
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+      if (listener != null) {
+        diagnostics.forEach(listener::report);
+      }
+      return Optional.of(new CompilationResult(success, diagnostics, outputs, charset, timings));
+    } catch (IOException e) {
+      // missing or broken entry
+      return Optional.empty();
+    }
+  }
+
+  public void put(
+      String key,
+      CompilationResult result,
+      JavaFileManager manager,
+      List<File> sourceOutputs,
+      Locale locale)
+      throws IOException {
+    Files.createDirectories(this.directory);
+    Path tmp = Files.createTempFile(this.directory, key, ".tmp");
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeBoolean(result.success());
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = result.getDiagnostics();
+        out.writeInt(diagnostics.size());
+        for (Diagnostic<? extends JavaFileObject> d : diagnostics) {
+          new CachedDiagnostic(d, locale).write(out);
+        }
+        Map<String, byte[]> outputs = this.collect(manager, sourceOutputs);
+        out.writeInt(outputs.size());
+        for (Map.Entry<String, byte[]> e : outputs.entrySet()) {
+          CachedDiagnostic.writeString(out, e.getKey());
+          out.writeInt(e.getValue().length);
+          out.write(e.getValue());
+        }
+      }
+      try {
+        Files.move(
+            tmp,
+            this.toPath(key),
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, this.toPath(key), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+    this.evict();
+  }
+
+  protected Map<String, byte[]> collect(JavaFileManager manager, List<File> sourceOutputs)
+      throws IOException {
+    return CompilationResult.collect(manager, sourceOutputs);
+  }
+
+  /** removes least recently used entries until the cache fits into its size bound. */
+  protected synchronized void evict() throws IOException {
+    List<Path> entries;
+    try (Stream<Path> files = Files.list(this.directory)) {
+      entries =
+          files
+              .filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+              .collect(Collectors.toList());
+    }
+    Map<Path, BasicFileAttributes> attrs = new LinkedHashMap<>();
+    long total = 0;
+    for (Path p : entries) {
+      try {
+        BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+        attrs.put(p, a);
+        total += a.size();
+      } catch (NoSuchFileException ignore) {
+        // removed concurrently
+      }
+    }
+    if (total <= this.maxBytes) {
+      return;
+    }
+    List<Path> oldest =
+        attrs
+            .keySet()
+            .stream()
+            .sorted(Comparator.comparing(p -> attrs.get(p).lastModifiedTime()))
+            .collect(Collectors.toList());
+    for (Path p : oldest) {
+      if (total <= this.maxBytes) {
+        break;
+      }
+      if (Files.deleteIfExists(p)) {
+        total -= attrs.get(p).size();
+      }
+    }
+  }
+}
@@ -15,24 +15,86 @@
  */
 package io.gige;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
 import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+import org.junit.jupiter.api.Assertions;
 
 /** @author taichi */
 public class CompilationResult {
 
   final boolean success;
-  final List<Diagnostic<? extends JavaFileObject>> storage;
+  final StandardJavaFileManager manager;
+  final DiagnosticStore storage;
+
+  /** replayed SOURCE_OUTPUT contents keyed by relative path, or {@code null} for live results. */
+  final Map<String, byte[]> outputs;
+
+  final Charset charset;
+
+  final Timings timings;
+
+  /** set when the file manager returns to {@link CompilerPool}, and serves another context. */
+  volatile boolean released;
 
   public CompilationResult(
       boolean success,
       StandardJavaFileManager manager,
       List<Diagnostic<? extends JavaFileObject>> storage) {
+    this(success, manager, storage, new Timings());
+  }
+
+  public CompilationResult(
+      boolean success,
+      StandardJavaFileManager manager,
+      List<Diagnostic<? extends JavaFileObject>> storage,
+      Timings timings) {
+    this(success, manager, new DiagnosticStore(storage), timings);
+  }
+
+  public CompilationResult(
+      boolean success,
+      StandardJavaFileManager manager,
+      DiagnosticStore storage,
+      Timings timings) {
     this.success = success;
+    this.manager = manager;
     this.storage = storage;
+    this.outputs = null;
+    this.charset = null;
+    this.timings = timings;
+  }
+
+  CompilationResult(
+      boolean success,
+      List<Diagnostic<? extends JavaFileObject>> storage,
+      Map<String, byte[]> outputs,
+      Charset charset,
+      Timings timings) {
+    this.success = success;
+    this.manager = null;
+    this.storage = new DiagnosticStore(storage);
+    this.outputs = outputs;
+    this.charset = charset;
+    this.timings = timings;
   }
 
   public boolean success() {
@@ -40,6 +102,114 @@ public class CompilationResult {
   };
 
   public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+    return this.storage.getDiagnostics();
+  }
+
+  /** indexed diagnostics, such as {@code diagnostics().errors().in(Foo.class).count()}. */
+  public DiagnosticStore diagnostics() {
     return this.storage;
   }
+
+  /** cached results only have SETUP and MAPPING. */
+  public Timings getTimings() {
+    return this.timings;
+  }
+
+  /** @return {@code true} if this result is replayed from {@link CompilationCache}. */
+  public boolean isCached() {
+    return this.outputs != null;
+  }
+
+  /** generated sources are readable until the {@link CompilerContext} is closed. */
+  public Optional<String> findOutputSource(Class<?> clazz) throws IOException {
+    return this.findOutputSource(clazz.getCanonicalName());
+  }
+
+  public Optional<String> findOutputSource(String className) throws IOException {
+    if (this.outputs != null) {
+      return this.find(className.replace('.', '/') + Kind.SOURCE.extension);
+    }
+    this.assertReadable();
+    return this.toString(
+        this.manager.getJavaFileForInput(StandardLocation.SOURCE_OUTPUT, className, Kind.SOURCE));
+  }
+
+  public Optional<String> findOutputResource(String pkg, String filename) throws IOException {
+    if (this.outputs != null) {
+      return this.find(pkg.isEmpty() ? filename : pkg.replace('.', '/') + "/" + filename);
+    }
+    this.assertReadable();
+    return this.toString(
+        this.manager.getFileForInput(StandardLocation.SOURCE_OUTPUT, pkg, filename));
+  }
+
+  /** @return SOURCE_OUTPUT contents keyed by relative path, such as {@code aaa/Bbb.java}. */
+  public Map<String, byte[]> getOutputs() throws IOException {
+    if (this.outputs != null) {
+      return Collections.unmodifiableMap(this.outputs);
+    }
+    this.assertReadable();
+    List<File> roots = new ArrayList<>();
+    Iterable<? extends File> location = this.manager.getLocation(StandardLocation.SOURCE_OUTPUT);
+    if (location != null) {
+      location.forEach(roots::add);
+    }
+    return Collections.unmodifiableMap(collect(this.manager, roots));
+  }
+
+  void release() {
+    this.released = true;
+  }
+
+  protected void assertReadable() {
+    Assertions.assertFalse(
+        this.released, "outputs of a pooled compiler are released with its CompilerContext");
+  }
+
+  static Map<String, byte[]> collect(JavaFileManager manager, List<File> sourceOutputs)
+      throws IOException {
+    Map<String, byte[]> outputs = new LinkedHashMap<>();
+    Iterable<JavaFileObject> files =
+        manager.list(StandardLocation.SOURCE_OUTPUT, "", EnumSet.allOf(Kind.class), true);
+    for (JavaFileObject jfo : files) {
+      String name = relativize(jfo.toUri(), sourceOutputs);
+      if (name != null) {
+        try (InputStream in = jfo.openInputStream()) {
+          outputs.put(name, in.readAllBytes());
+        }
+      }
+    }
+    return outputs;
+  }
+
+  static String relativize(URI uri, List<File> roots) {
+    if ("file".equals(uri.getScheme()) == false) {
+      // in-memory objects, mem:///SOURCE_OUTPUT/aaa/Bbb.java
+      String path = uri.getPath();
+      String prefix = "/" + StandardLocation.SOURCE_OUTPUT.getName() + "/";
+      return path != null && path.startsWith(prefix) ? path.substring(prefix.length()) : null;
+    }
+    for (File root : roots) {
+      URI relative = root.toURI().relativize(uri);
+      if (relative.isAbsolute() == false) {
+        return relative.getPath();
+      }
+    }
+    return null;
+  }
+
+  protected Optional<String> find(String path) {
+    return Optional.ofNullable(this.outputs.get(path)).map(b -> new String(b, this.charset));
+  }
+
+  protected Optional<String> toString(FileObject obj) throws IOException {
+    if (obj == null) {
+      return Optional.empty();
+    }
+    CharSequence content = obj.getCharContent(true);
+    if (content == null) {
+      return Optional.empty();
+    }
+    return Optional.of(content.toString());
+  }
 }
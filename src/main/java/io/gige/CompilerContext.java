@@ -20,9 +20,13 @@ import java.io.IOException;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -39,10 +43,18 @@ import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
 
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskListener;
+
 import org.junit.jupiter.api.Assertions;
 
+import io.gige.compiler.internal.CompilationTaskImpl;
 import io.gige.internal.CompositeDiagnosticListener;
+import io.gige.internal.InMemoryJavaFileManager;
 import io.gige.internal.ResourceProxyJavaFileManager;
+import io.gige.internal.TimedProcessor;
+import io.gige.internal.TimingListener;
+import io.gige.util.GigeTypes;
 
 /** @author taichi */
 public class CompilerContext implements AutoCloseable {
@@ -65,12 +77,36 @@ public class CompilerContext implements AutoCloseable {
 
   protected List<Processor> processors = Collections.emptyList();
 
+  /** create processors for each compilation. */
+  protected List<Supplier<? extends Processor>> factories = Collections.emptyList();
+
   protected DiagnosticListener<JavaFileObject> diagnosticListener;
 
+  protected boolean inMemory = false;
+
+  protected boolean processingOnly = false;
+
+  protected boolean timeProcessors = false;
+
+  /** system property to choose where default output directories are created. */
+  public static final String OUTPUT_ROOT = "gige.output.root";
+
+  /** default output directory of this context. created on demand, and deleted by close(). */
+  protected Path temporary;
+
   protected final Supplier<JavaCompiler> provider;
 
   protected List<StandardJavaFileManager> managers = new ArrayList<>();
 
+  protected CompilerPool pool;
+
+  protected List<CompilerPool.Lease> leases = new ArrayList<>();
+
+  /** results which read leased file managers. */
+  protected List<CompilationResult> leased = new ArrayList<>();
+
+  protected CompilationCache cache;
+
   public CompilerContext() {
     this(Compilers.Type.Standard);
   }
@@ -78,13 +114,49 @@ public class CompilerContext implements AutoCloseable {
   public CompilerContext(Supplier<JavaCompiler> provider) {
     Assertions.assertNotNull(provider);
     this.provider = provider;
-    this.classOutputs = this.sourceOutputs = Arrays.asList(new File(".gige", provider.toString()));
   }
 
   public CompilerContext set(Processor... processors) {
     Assertions.assertNotNull(processors);
     Assertions.assertTrue(0 < processors.length);
     this.processors = Arrays.asList(processors);
+    this.factories = Collections.emptyList();
+    return this;
+  }
+
+  /**
+   * processors are created for each compilation. unlike processor instances, they can be used in
+   * background compilations of {@link Compilers#parallel()}, if the factories of each invocation
+   * are equal, like constructor references.
+   */
+  @SafeVarargs
+  public final CompilerContext setProcessors(Supplier<? extends Processor>... factories) {
+    List<Supplier<? extends Processor>> list = new ArrayList<>();
+    for (Supplier<? extends Processor> f : factories) {
+      list.add(f);
+    }
+    return this.setProcessors(list);
+  }
+
+  public CompilerContext setProcessors(List<Supplier<? extends Processor>> factories) {
+    Assertions.assertNotNull(factories);
+    Assertions.assertTrue(0 < factories.size());
+    this.factories = factories;
+    this.processors = Collections.emptyList();
+    return this;
+  }
+
+  /** lease compilers and file managers from the pool instead of creating them every time. */
+  public CompilerContext set(CompilerPool pool) {
+    Assertions.assertNotNull(pool);
+    this.pool = pool;
+    return this;
+  }
+
+  /** reuse results of {@link #compile()} across runs while its inputs are unchanged. */
+  public CompilerContext set(CompilationCache cache) {
+    Assertions.assertNotNull(cache);
+    this.cache = cache;
     return this;
   }
 
@@ -223,36 +295,170 @@ public class CompilerContext implements AutoCloseable {
     return this;
   }
 
+  /**
+   * keep generated sources and classes on the heap instead of the class and source output
+   * directories.
+   */
+  public CompilerContext inMemory() {
+    this.inMemory = true;
+    return this;
+  }
+
+  public boolean isInMemory() {
+    return this.inMemory;
+  }
+
+  /** run annotation processors only, same as {@code -proc:only}. no class files are generated. */
+  public CompilerContext processingOnly() {
+    this.processingOnly = true;
+    return this;
+  }
+
+  /**
+   * record elapsed time of each processor per round in {@link Timings}. processors are wrapped by
+   * {@link TimedProcessor}, so the compiler sees the wrappers instead of them.
+   */
+  public CompilerContext timeProcessors() {
+    this.timeProcessors = true;
+    return this;
+  }
+
+  public boolean isProcessingOnly() {
+    return this.processingOnly;
+  }
+
+  protected Iterable<String> getOptions() {
+    if (this.processingOnly == false) {
+      return this.options;
+    }
+    List<String> list = new ArrayList<>();
+    this.options.forEach(list::add);
+    if (list.contains("-proc:only") == false) {
+      list.add("-proc:only");
+    }
+    return list;
+  }
+
+  public List<File> getClassOutputs() throws IOException {
+    return this.classOutputs.isEmpty() ? this.getTemporaryOutputs() : this.classOutputs;
+  }
+
+  public List<File> getSourceOutputs() throws IOException {
+    return this.sourceOutputs.isEmpty() ? this.getTemporaryOutputs() : this.sourceOutputs;
+  }
+
+  protected List<File> getTemporaryOutputs() throws IOException {
+    if (this.temporary == null) {
+      // toString() of lambdas contains '/', which is not allowed in the prefix.
+      String prefix =
+          this.provider instanceof Compilers.Type
+              ? "gige-" + ((Compilers.Type) this.provider).name() + "-"
+              : "gige-";
+      this.temporary = Files.createTempDirectory(this.getOutputRoot(), prefix);
+    }
+    return Arrays.asList(this.temporary.toFile());
+  }
+
+  protected Path getOutputRoot() throws IOException {
+    String root = System.getProperty(OUTPUT_ROOT);
+    if (root != null && root.isEmpty() == false) {
+      return Files.createDirectories(Paths.get(root));
+    }
+    // prefer tmpfs
+    Path shm = Paths.get("/dev/shm");
+    if (Files.isDirectory(shm) && Files.isWritable(shm)) {
+      return shm;
+    }
+    return Paths.get(System.getProperty("java.io.tmpdir"));
+  }
+
   public CompilationResult compile() throws IOException {
-    return this.compile(ctx -> {});
+    return this.compile(ctx -> {}, this.cache);
   }
 
   public CompilationResult compile(AssertionBlock afterThat) throws IOException {
+    return this.compile(afterThat, null);
+  }
+
+  protected CompilationResult compile(AssertionBlock afterThat, CompilationCache cache)
+      throws IOException {
     Assertions.assertFalse(this.units.isEmpty());
 
-    JavaCompiler compiler = this.provider.get();
+    var timings = new Timings();
+    long start = System.nanoTime();
     var dl = new CompositeDiagnosticListener(this.diagnosticListener);
 
-    StandardJavaFileManager manager =
-        compiler.getStandardFileManager(dl, this.getLocale(), this.getCharset());
+    JavaCompiler compiler;
+    StandardJavaFileManager manager;
+    if (this.pool == null) {
+      compiler = this.provider.get();
+      manager = compiler.getStandardFileManager(dl, this.getLocale(), this.getCharset());
+      this.managers.add(manager);
+    } else {
+      var lease =
+          this.pool.lease(this.provider, this.getLocale(), this.getCharset(), this.getOptions());
+      this.leases.add(lease);
+      compiler = lease.getCompiler();
+      manager = lease.getManager(dl);
+    }
     manager.setLocation(StandardLocation.SOURCE_PATH, this.sourcePaths);
 
-    Stream.of(this.classOutputs, this.sourceOutputs)
-        .flatMap(List::stream)
-        .filter(f -> f.exists() == false)
-        .forEach(f -> f.mkdirs());
-    manager.setLocation(StandardLocation.CLASS_OUTPUT, this.classOutputs);
-    manager.setLocation(StandardLocation.SOURCE_OUTPUT, this.sourceOutputs);
-    this.managers.add(manager);
+    if (this.inMemory) {
+      manager = new InMemoryJavaFileManager(manager, this.getCharset());
+    } else {
+      var classes = this.getClassOutputs();
+      var sources = this.getSourceOutputs();
+      Stream.of(classes, sources)
+          .flatMap(List::stream)
+          .filter(f -> f.exists() == false)
+          .forEach(f -> f.mkdirs());
+      manager.setLocation(StandardLocation.CLASS_OUTPUT, classes);
+      manager.setLocation(StandardLocation.SOURCE_OUTPUT, sources);
+    }
 
-    var list = new ArrayList<>(this.processors);
-    var pros = new AssertionProcessor(manager, afterThat);
+    List<Processor> list = new ArrayList<>();
+    this.processors.forEach(list::add);
+    this.factories.forEach(f -> list.add(f.get()));
+    if (this.timeProcessors) {
+      list.replaceAll(p -> new TimedProcessor(p, timings));
+    }
+    var pros = new AssertionProcessor(manager, afterThat, timings);
     list.add(pros);
+    timings.add(Timings.Phase.SETUP, System.nanoTime() - start);
+
+    start = System.nanoTime();
+    var units = this.map(manager, this.units);
+    timings.add(Timings.Phase.MAPPING, System.nanoTime() - start);
+    String key = null;
+    if (cache != null) {
+      key = cache.digest(this, units);
+    }
+    if (key != null) {
+      var hit = cache.find(key, this.getCharset(), this.diagnosticListener, timings);
+      if (hit.isPresent()) {
+        return hit.get();
+      }
+    }
 
-    var task = this.newTask(compiler, dl, this.wrap(manager), this.map(manager, this.units), list);
-    var result = new CompilationResult(task.call(), manager, dl.getDiagnostics());
+    var task = this.newTask(compiler, dl, this.wrap(manager), units, list);
+    this.listen(task, new TimingListener(timings));
+    Boolean success;
+    try {
+      success = task.call();
+    } finally {
+      GigeTypes.forget();
+    }
+    var result = new CompilationResult(success, manager, dl.getStore(), timings);
+    if (this.pool != null) {
+      this.leased.add(result);
+    }
     pros.rethrowOrNothing();
 
+    if (key != null) {
+      var outputs = this.inMemory ? Collections.<File>emptyList() : this.getSourceOutputs();
+      cache.put(key, result, manager, outputs, this.getLocale());
+    }
+
     return result;
   }
 
@@ -263,12 +469,21 @@ public class CompilerContext implements AutoCloseable {
       List<JavaFileObject> units,
       List<Processor> list) {
     CompilationTask task =
-        compiler.getTask(this.getOut(), manager, dl, this.options, Collections.emptyList(), units);
+        compiler.getTask(
+            this.getOut(), manager, dl, this.getOptions(), Collections.emptyList(), units);
     task.setLocale(this.getLocale());
     task.setProcessors(list);
     return task;
   }
 
+  protected void listen(CompilationTask task, TaskListener listener) {
+    if (task instanceof JavacTask) {
+      ((JavacTask) task).addTaskListener(listener);
+    } else if (task instanceof CompilationTaskImpl) {
+      ((CompilationTaskImpl) task).addTaskListener(listener);
+    }
+  }
+
   protected JavaFileManager wrap(StandardJavaFileManager manager) {
     // emulate auto resource copying.
     return new ResourceProxyJavaFileManager(manager);
@@ -284,6 +499,18 @@ public class CompilerContext implements AutoCloseable {
       m.close();
     }
     this.managers.clear();
+    this.leased.forEach(CompilationResult::release);
+    this.leased.clear();
+    for (CompilerPool.Lease l : this.leases) {
+      l.close();
+    }
+    this.leases.clear();
+    if (this.temporary != null) {
+      try (Stream<Path> files = Files.walk(this.temporary)) {
+        files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+      this.temporary = null;
+    }
   }
 
   @Override
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.function.Supplier;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * keeps compilers and their file managers warm across {@link CompilerContext}s.
+ *
+ * <p>entries are keyed by the compiler provider, locale, charset and the compiler options, because
+ * file manager options such as {@code -classpath} are applied to the manager itself.
+ *
+ * <p>a pooled Eclipse compiler keeps its classpath listings across leases, so classes which are
+ * added to classpath directories later may not be seen. results of a lease can not read outputs
+ * after the {@link CompilerContext} is closed.
+ *
+ * @author taichi
+ */
+public class CompilerPool implements AutoCloseable {
+
+  static final int DEFAULT_MAX_IDLE = 4;
+
+  static final StandardLocation[] RESTORABLE = {
+    StandardLocation.SOURCE_PATH,
+    StandardLocation.CLASS_OUTPUT,
+    StandardLocation.SOURCE_OUTPUT,
+    StandardLocation.CLASS_PATH,
+    StandardLocation.ANNOTATION_PROCESSOR_PATH
+  };
+
+  final int maxIdle;
+
+  final Map<List<Object>, Deque<Lease>> idles = new ConcurrentHashMap<>();
+
+  volatile boolean closed = false;
+
+  public CompilerPool() {
+    this(DEFAULT_MAX_IDLE);
+  }
+
+  public CompilerPool(int maxIdle) {
+    Assertions.assertTrue(0 < maxIdle);
+    this.maxIdle = maxIdle;
+  }
+
+  public Lease lease(
+      Supplier<JavaCompiler> provider, Locale locale, Charset charset, Iterable<String> options) {
+    Assertions.assertNotNull(provider);
+    Assertions.assertFalse(this.closed, "pool is already closed");
+    List<Object> key = this.toKey(provider, locale, charset, options);
+    Lease lease = this.idles.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>()).pollFirst();
+    if (lease == null) {
+      lease = new Lease(key, provider.get(), locale, charset);
+    }
+    return lease;
+  }
+
+  protected List<Object> toKey(
+      Supplier<JavaCompiler> provider, Locale locale, Charset charset, Iterable<String> options) {
+    List<Object> opts = new ArrayList<>();
+    options.forEach(opts::add);
+    return List.of(provider, locale, charset, opts);
+  }
+
+  protected void release(Lease lease) throws IOException {
+    lease.reset();
+    Deque<Lease> deque = this.idles.computeIfAbsent(lease.key, k -> new ConcurrentLinkedDeque<>());
+    if (this.closed || this.maxIdle <= deque.size()) {
+      lease.manager.close();
+      return;
+    }
+    deque.offerFirst(lease);
+    if (this.closed && deque.remove(lease)) {
+      // lost the race against close()
+      lease.manager.close();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.closed = true;
+    IOException ex = null;
+    for (Deque<Lease> deque : this.idles.values()) {
+      for (Lease lease; (lease = deque.pollFirst()) != null; ) {
+        try {
+          lease.manager.close();
+        } catch (IOException e) {
+          if (ex == null) {
+            ex = e;
+          } else {
+            ex.addSuppressed(e);
+          }
+        }
+      }
+    }
+    this.idles.clear();
+    if (ex != null) {
+      throw ex;
+    }
+  }
+
+  /** a compiler and file manager pair borrowed from the pool. */
+  public class Lease implements AutoCloseable, DiagnosticListener<JavaFileObject> {
+
+    final List<Object> key;
+
+    final JavaCompiler compiler;
+
+    final StandardJavaFileManager manager;
+
+    final Map<StandardLocation, List<File>> snapshot = new EnumMap<>(StandardLocation.class);
+
+    volatile DiagnosticListener<? super JavaFileObject> listener;
+
+    Lease(List<Object> key, JavaCompiler compiler, Locale locale, Charset charset) {
+      this.key = key;
+      this.compiler = compiler;
+      this.manager = compiler.getStandardFileManager(this, locale, charset);
+      for (StandardLocation loc : RESTORABLE) {
+        Iterable<? extends File> files = this.manager.getLocation(loc);
+        if (files != null) {
+          List<File> list = new ArrayList<>();
+          files.forEach(list::add);
+          this.snapshot.put(loc, list);
+        }
+      }
+    }
+
+    public JavaCompiler getCompiler() {
+      return this.compiler;
+    }
+
+    /** file manager diagnostics are forwarded to the given listener until this lease is closed. */
+    public StandardJavaFileManager getManager(DiagnosticListener<? super JavaFileObject> listener) {
+      this.listener = listener;
+      return this.manager;
+    }
+
+    @Override
+    public void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+      DiagnosticListener<? super JavaFileObject> dl = this.listener;
+      if (dl != null) {
+        dl.report(diagnostic);
+      }
+    }
+
+    void reset() throws IOException {
+      this.listener = null;
+      this.manager.flush();
+      for (Map.Entry<StandardLocation, List<File>> e : this.snapshot.entrySet()) {
+        this.manager.setLocation(e.getKey(), e.getValue());
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      CompilerPool.this.release(this);
+    }
+  }
+}
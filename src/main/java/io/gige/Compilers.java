@@ -34,6 +34,22 @@ public @interface Compilers {
 
   Type[] value() default {Type.Standard, Type.Eclipse};
 
+  /**
+   * compile every type concurrently. the first compilation of a test starts the others in the
+   * background with the same settings, and later invocations run their assertions against them.
+   *
+   * <p>processor instances can not be shared by two compilations, so only tests which use
+   * {@link io.gige.CompilerContext#setProcessors(java.util.function.Supplier...)} or no processors
+   * are compiled in background. the others are compiled sequentially as usual.
+   *
+   * <p>assertion blocks of background compilations run on a background thread, since they run
+   * inside the compiler. thread locals of the test thread are not visible there, so assertions
+   * must not rely on them or on extension callbacks. failures are rethrown by {@link
+   * io.gige.CompilerContext#compile(AssertionBlock)} of the invocation. a background compilation
+   * waits at most 60 seconds for its invocation, which compiles by itself if it comes later.
+   */
+  boolean parallel() default false;
+
   public enum Type implements Supplier<JavaCompiler> {
     Standard {
       @Override
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+
+/**
+ * diagnostics indexed by kind, source file, line and code as they arrive.
+ *
+ * <pre>
+ * result.diagnostics().errors().in(Foo.class).count();
+ * </pre>
+ *
+ * @author taichi
+ */
+public class DiagnosticStore implements DiagnosticListener<JavaFileObject> {
+
+  final List<Entry> entries = new ArrayList<>();
+
+  final Map<Kind, List<Entry>> kinds = new EnumMap<>(Kind.class);
+
+  /** keyed by file name without extension, because the source path root is unknown. */
+  final Map<String, List<Entry>> sources = new HashMap<>();
+
+  final Map<Long, List<Entry>> lines = new HashMap<>();
+
+  final Map<String, List<Entry>> codes = new HashMap<>();
+
+  public DiagnosticStore() {}
+
+  public DiagnosticStore(List<? extends Diagnostic<? extends JavaFileObject>> diagnostics) {
+    diagnostics.forEach(this::report);
+  }
+
+  @Override
+  public synchronized void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+    Entry e = new Entry(diagnostic);
+    this.entries.add(e);
+    this.kinds.computeIfAbsent(diagnostic.getKind(), k -> new ArrayList<>()).add(e);
+    if (e.name != null) {
+      this.sources.computeIfAbsent(e.name, k -> new ArrayList<>()).add(e);
+    }
+    this.lines.computeIfAbsent(diagnostic.getLineNumber(), k -> new ArrayList<>()).add(e);
+    if (diagnostic.getCode() != null) {
+      this.codes.computeIfAbsent(diagnostic.getCode(), k -> new ArrayList<>()).add(e);
+    }
+  }
+
+  public Query all() {
+    return new Query(this, null, null, null, null);
+  }
+
+  public Query errors() {
+    return this.all().errors();
+  }
+
+  public Query warnings() {
+    return this.all().warnings();
+  }
+
+  public Query notes() {
+    return this.all().notes();
+  }
+
+  public Query of(Kind... kinds) {
+    return this.all().of(kinds);
+  }
+
+  public Query in(Class<?> clazz) {
+    return this.all().in(clazz);
+  }
+
+  public Query in(String className) {
+    return this.all().in(className);
+  }
+
+  public Query at(long line) {
+    return this.all().at(line);
+  }
+
+  public Query code(String code) {
+    return this.all().code(code);
+  }
+
+  public int count() {
+    return this.all().count();
+  }
+
+  public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+    return this.all().list();
+  }
+
+  static class Entry {
+    final Diagnostic<? extends JavaFileObject> diagnostic;
+    /** path of the source without extension, or {@code null}. */
+    final String path;
+
+    final String name;
+
+    Entry(Diagnostic<? extends JavaFileObject> diagnostic) {
+      this.diagnostic = diagnostic;
+      JavaFileObject source = diagnostic.getSource();
+      String p = source == null ? null : source.toUri().getPath();
+      if (p == null) {
+        this.path = null;
+        this.name = null;
+      } else {
+        int dot = p.lastIndexOf('.');
+        this.path = dot < p.lastIndexOf('/') ? p : p.substring(0, dot);
+        this.name = this.path.substring(this.path.lastIndexOf('/') + 1);
+      }
+    }
+  }
+
+  /**
+   * an immutable query. each condition narrows the result, and the smallest index bucket is
+   * scanned when it is evaluated.
+   */
+  public static class Query {
+
+    final DiagnosticStore store;
+
+    final Set<Kind> kinds;
+
+    /** top level class name as a path, like {@code io/gige/Foo}. */
+    final String source;
+
+    final Long line;
+
+    final String code;
+
+    List<Diagnostic<? extends JavaFileObject>> result;
+
+    /** size of the store when the result is evaluated. */
+    int evaluated = -1;
+
+    Query(DiagnosticStore store, Set<Kind> kinds, String source, Long line, String code) {
+      this.store = store;
+      this.kinds = kinds;
+      this.source = source;
+      this.line = line;
+      this.code = code;
+    }
+
+    public Query errors() {
+      return this.of(Kind.ERROR);
+    }
+
+    /** includes mandatory warnings. */
+    public Query warnings() {
+      return this.of(Kind.WARNING, Kind.MANDATORY_WARNING);
+    }
+
+    public Query notes() {
+      return this.of(Kind.NOTE);
+    }
+
+    public Query of(Kind... kinds) {
+      Set<Kind> set = EnumSet.noneOf(Kind.class);
+      Collections.addAll(set, kinds);
+      if (this.kinds != null) {
+        set.retainAll(this.kinds);
+      }
+      return new Query(this.store, set, this.source, this.line, this.code);
+    }
+
+    /** diagnostics in the source file of the class. nested classes are in their top level. */
+    public Query in(Class<?> clazz) {
+      Class<?> top = clazz;
+      while (top.getEnclosingClass() != null) {
+        top = top.getEnclosingClass();
+      }
+      return this.in(top.getName());
+    }
+
+    public Query in(String className) {
+      Objects.requireNonNull(className);
+      String path = className.replace('.', '/');
+      if (this.source != null && this.source.equals(path) == false) {
+        return new Query(this.store, EnumSet.noneOf(Kind.class), path, this.line, this.code);
+      }
+      return new Query(this.store, this.kinds, path, this.line, this.code);
+    }
+
+    public Query at(long line) {
+      if (this.line != null && this.line != line) {
+        return new Query(this.store, EnumSet.noneOf(Kind.class), this.source, line, this.code);
+      }
+      return new Query(this.store, this.kinds, this.source, line, this.code);
+    }
+
+    public Query code(String code) {
+      Objects.requireNonNull(code);
+      if (this.code != null && this.code.equals(code) == false) {
+        return new Query(this.store, EnumSet.noneOf(Kind.class), this.source, this.line, code);
+      }
+      return new Query(this.store, this.kinds, this.source, this.line, code);
+    }
+
+    public int count() {
+      synchronized (this.store) {
+        List<Entry> exact = this.exact();
+        if (exact != null) {
+          return exact.size();
+        }
+      }
+      return this.list().size();
+    }
+
+    /** @return the index bucket which matches this query exactly, or {@code null}. */
+    protected List<Entry> exact() {
+      if (this.source != null) {
+        // buckets are keyed by file name only.
+        return null;
+      }
+      if (this.kinds != null) {
+        if (this.line == null && this.code == null && this.kinds.size() == 1) {
+          return this.bucket(this.store.kinds, this.kinds.iterator().next());
+        }
+        return null;
+      }
+      if (this.line != null && this.code == null) {
+        return this.bucket(this.store.lines, this.line);
+      }
+      if (this.line == null && this.code != null) {
+        return this.bucket(this.store.codes, this.code);
+      }
+      return this.line == null ? this.store.entries : null;
+    }
+
+    public boolean isEmpty() {
+      return this.list().isEmpty();
+    }
+
+    public Optional<Diagnostic<? extends JavaFileObject>> first() {
+      List<Diagnostic<? extends JavaFileObject>> list = this.list();
+      return list.isEmpty() ? Optional.empty() : Optional.of(list.get(0));
+    }
+
+    public Stream<Diagnostic<? extends JavaFileObject>> stream() {
+      return this.list().stream();
+    }
+
+    /** @return matched diagnostics in reported order. */
+    public List<Diagnostic<? extends JavaFileObject>> list() {
+      synchronized (this.store) {
+        if (this.evaluated != this.store.entries.size()) {
+          this.result = this.evaluate();
+          this.evaluated = this.store.entries.size();
+        }
+        return this.result;
+      }
+    }
+
+    protected List<Diagnostic<? extends JavaFileObject>> evaluate() {
+      List<List<Entry>> candidates = new ArrayList<>();
+      if (this.kinds != null) {
+        if (this.kinds.size() == 1) {
+          candidates.add(this.bucket(this.store.kinds, this.kinds.iterator().next()));
+        } else if (this.kinds.isEmpty()) {
+          return Collections.emptyList();
+        }
+      }
+      if (this.source != null) {
+        String name = this.source.substring(this.source.lastIndexOf('/') + 1);
+        candidates.add(this.bucket(this.store.sources, name));
+      }
+      if (this.line != null) {
+        candidates.add(this.bucket(this.store.lines, this.line));
+      }
+      if (this.code != null) {
+        candidates.add(this.bucket(this.store.codes, this.code));
+      }
+      List<Entry> smallest = this.store.entries;
+      for (List<Entry> c : candidates) {
+        if (c.size() < smallest.size()) {
+          smallest = c;
+        }
+      }
+      Predicate<Entry> filter = this.toFilter();
+      return Collections.unmodifiableList(
+          smallest.stream().filter(filter).map(e -> e.diagnostic).collect(Collectors.toList()));
+    }
+
+    protected <K> List<Entry> bucket(Map<K, List<Entry>> index, K key) {
+      return index.getOrDefault(key, Collections.emptyList());
+    }
+
+    protected Predicate<Entry> toFilter() {
+      Predicate<Entry> p = e -> true;
+      if (this.kinds != null) {
+        p = p.and(e -> this.kinds.contains(e.diagnostic.getKind()));
+      }
+      if (this.source != null) {
+        String suffix = "/" + this.source;
+        p = p.and(e -> e.path != null && (e.path.endsWith(suffix) || e.path.equals(this.source)));
+      }
+      if (this.line != null) {
+        p = p.and(e -> e.diagnostic.getLineNumber() == this.line);
+      }
+      if (this.code != null) {
+        p = p.and(e -> this.code.equals(e.diagnostic.getCode()));
+      }
+      return p;
+    }
+  }
+}
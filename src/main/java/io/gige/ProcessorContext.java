@@ -4,11 +4,19 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.CharBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
@@ -25,10 +33,11 @@ import javax.tools.StandardLocation;
 
 import org.junit.jupiter.api.Assertions;
 
-import io.gige.util.ElementFilter;
+import io.gige.internal.MemberIndex;
+import io.gige.util.ElementIndex;
 import io.gige.util.GigeTypes;
+import io.gige.util.SourceComparator;
 import io.gige.util.TypeHierarchy;
-import io.gige.util.Zipper;
 
 public class ProcessorContext {
 
@@ -36,14 +45,41 @@ public class ProcessorContext {
   final ProcessingEnvironment processingEnvironment;
   final RoundEnvironment roundEnvironment;
 
+  final Map<TypeElement, MemberIndex> members = new HashMap<>();
+
+  /** names not found in this round. resolved names are memoized by {@link GigeTypes}. */
+  final Set<String> unknownElements = new HashSet<>();
+
+  final Set<String> unknownMirrors = new HashSet<>();
+
+  /** root elements of all rounds, the last round has none. */
+  final List<? extends Element> rootElements;
+
+  ElementIndex elements;
+
+  static final Pattern WHITESPACE = Pattern.compile("\\h");
+
   public ProcessorContext(
       StandardJavaFileManager manager,
       ProcessingEnvironment processingEnvironment,
       RoundEnvironment roundEnvironment) {
+    this(
+        manager,
+        processingEnvironment,
+        roundEnvironment,
+        new ArrayList<>(roundEnvironment.getRootElements()));
+  }
+
+  public ProcessorContext(
+      StandardJavaFileManager manager,
+      ProcessingEnvironment processingEnvironment,
+      RoundEnvironment roundEnvironment,
+      List<? extends Element> rootElements) {
     super();
     this.manager = manager;
     this.processingEnvironment = processingEnvironment;
     this.roundEnvironment = roundEnvironment;
+    this.rootElements = rootElements;
   }
 
   public StandardJavaFileManager getManager() {
@@ -58,21 +94,36 @@ public class ProcessorContext {
     return this.roundEnvironment;
   }
 
+  /** elements of root elements, indexed on first use. */
+  public ElementIndex getElements() {
+    if (this.elements == null) {
+      this.elements = new ElementIndex(this.processingEnvironment, this.rootElements);
+    }
+    return this.elements;
+  }
+
   public Optional<TypeElement> getTypeElement(Class<?> clazz) {
     return this.getTypeElement(clazz.getCanonicalName());
   }
 
   public Optional<TypeElement> getTypeElement(String className) {
-    try {
-      return Optional.ofNullable(
-          this.processingEnvironment.getElementUtils().getTypeElement(className));
-    } catch (NullPointerException e) {
+    if (this.unknownElements.contains(className)) {
       return Optional.empty();
     }
+    TypeElement te = GigeTypes.getTypeElement(this.processingEnvironment, className);
+    if (te == null) {
+      this.unknownElements.add(className);
+    }
+    return Optional.ofNullable(te);
+  }
+
+  /** member indexes of types queried in this round. */
+  protected MemberIndex getMembers(TypeElement element) {
+    return this.members.computeIfAbsent(element, MemberIndex::new);
   }
 
   public Optional<VariableElement> getField(TypeElement element, CharSequence name) {
-    return ElementFilter.fieldsIn(element).filter(ElementFilter.simpleName(name)).findFirst();
+    return this.getMembers(element).getField(name);
   }
 
   protected Predicate<ExecutableElement> sizeFilter(int length) {
@@ -80,86 +131,152 @@ public class ProcessorContext {
   }
 
   protected Predicate<ExecutableElement> argsFilter(String... argTypes) {
-    return this.sizeFilter(argTypes.length).and(e -> this.isSameTypes(e, argTypes));
+    List<String> names = this.normalize(argTypes);
+    return this.sizeFilter(argTypes.length).and(e -> this.signatureOf(e).equals(names));
   }
 
   protected Predicate<ExecutableElement> argsFilter(Class<?>... argTypes) {
-    return this.sizeFilter(argTypes.length).and(e -> this.isSameTypes(e, argTypes));
+    Optional<List<TypeMirror>> mirrors = this.toTypeMirrors(argTypes);
+    return this.sizeFilter(argTypes.length)
+        .and(e -> mirrors.map(tms -> this.isSameTypes(e, tms)).orElse(false));
   }
 
   public Optional<ExecutableElement> getConstructor(TypeElement element) {
-    return ElementFilter.constructorsIn(element).filter(this.sizeFilter(0)).findFirst();
+    return this.getMembers(element).getConstructors(0).stream().findFirst();
   }
 
   public Optional<ExecutableElement> getConstructor(TypeElement element, Class<?>... argTypes) {
-    return ElementFilter.constructorsIn(element).filter(this.argsFilter(argTypes)).findFirst();
+    return this.getMembers(element)
+        .getConstructors(argTypes.length)
+        .stream()
+        .filter(this.argsFilter(argTypes))
+        .findFirst();
   }
 
   public Optional<ExecutableElement> getConstructor(TypeElement element, String... argTypes) {
-    return ElementFilter.constructorsIn(element).filter(this.argsFilter(argTypes)).findFirst();
+    return this.getMembers(element)
+        .getConstructors(argTypes.length)
+        .stream()
+        .filter(this.argsFilter(argTypes))
+        .findFirst();
   }
 
   public Optional<ExecutableElement> getMethod(TypeElement element, String name) {
-    return ElementFilter.methodsIn(element)
-        .filter(ElementFilter.simpleName(name))
-        .filter(this.sizeFilter(0))
-        .findFirst();
+    return this.getMembers(element).getMethods(name, 0).stream().findFirst();
   }
 
   public Optional<ExecutableElement> getMethod(
       TypeElement element, String name, Class<?>... argTypes) {
-    return ElementFilter.methodsIn(element)
-        .filter(ElementFilter.simpleName(name))
+    return this.getMembers(element)
+        .getMethods(name, argTypes.length)
+        .stream()
         .filter(this.argsFilter(argTypes))
         .findFirst();
   }
 
   public Optional<ExecutableElement> getMethod(
       TypeElement element, String name, String... argTypes) {
-    return ElementFilter.methodsIn(element)
-        .filter(ElementFilter.simpleName(name))
+    return this.getMembers(element)
+        .getMethods(name, argTypes.length)
+        .stream()
         .filter(this.argsFilter(argTypes))
         .findFirst();
   }
 
+  /** searches superclasses and superinterfaces. */
   public Optional<ExecutableElement> findMethod(Class<?> clazz, String name, Class<?>... argTypes) {
+    Predicate<ExecutableElement> filter = this.argsFilter(argTypes);
     return this.getTypeElement(clazz)
         .flatMap(
             te ->
-                TypeHierarchy.of(this.getProcessingEnvironment(), te)
-                    .flatMap(ElementFilter::methodsIn)
-                    .filter(ElementFilter.simpleName(name))
-                    .filter(this.argsFilter(argTypes))
+                TypeHierarchy.all(this.getProcessingEnvironment(), te)
+                    .flatMap(t -> this.getMembers(t).getMethods(name, argTypes.length).stream())
+                    .filter(filter)
                     .findFirst());
   }
 
+  /**
+   * compares all parameter types with type names. whitespaces in type names are ignored.
+   *
+   * @return {@code false} if the number of parameters differs.
+   */
   public boolean isSameTypes(ExecutableElement signature, String[] right) {
-    Stream<String> lNames = signature.getParameters().stream().map(ve -> ve.asType().toString());
-    Stream<String> rNames = Stream.of(right).map(s -> s.replaceAll("\\h", ""));
-    return Zipper.of(lNames, rNames, String::equals).allMatch(is -> is);
+    return this.signatureOf(signature).equals(this.normalize(right));
   }
 
+  /**
+   * compares all parameter types with classes. primitive and array classes are compared too.
+   *
+   * @return {@code false} if the number of parameters differs, or any of classes are not found.
+   */
   public boolean isSameTypes(ExecutableElement signature, Class<?>[] right) {
-    Stream<TypeMirror> lTM = signature.getParameters().stream().map(Element::asType);
-    Stream<TypeMirror> rTM =
-        Stream.of(right)
-            .map(this::getTypeElement)
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .map(Element::asType);
-    return Zipper.of(lTM, rTM, this::isSameType).allMatch(is -> is);
+    return this.toTypeMirrors(right).map(tms -> this.isSameTypes(signature, tms)).orElse(false);
+  }
+
+  protected boolean isSameTypes(ExecutableElement signature, List<TypeMirror> right) {
+    List<? extends VariableElement> params = signature.getParameters();
+    if (params.size() != right.size()) {
+      return false;
+    }
+    for (int i = 0; i < right.size(); i++) {
+      if (this.isSameType(params.get(i).asType(), right.get(i)) == false) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  protected List<String> signatureOf(ExecutableElement e) {
+    Element enclosing = e.getEnclosingElement();
+    if (enclosing instanceof TypeElement) {
+      return this.getMembers((TypeElement) enclosing).getSignature(e);
+    }
+    return e.getParameters()
+        .stream()
+        .map(ve -> ve.asType().toString())
+        .collect(Collectors.toList());
+  }
+
+  /** removes whitespaces of type names, such as {@code Map<K, V>}. */
+  protected List<String> normalize(String[] typeNames) {
+    List<String> result = new ArrayList<>(typeNames.length);
+    for (String s : typeNames) {
+      result.add(WHITESPACE.matcher(s).replaceAll(""));
+    }
+    return result;
+  }
+
+  /** @return empty if any of classes are not found. */
+  protected Optional<List<TypeMirror>> toTypeMirrors(Class<?>[] classes) {
+    List<TypeMirror> result = new ArrayList<>(classes.length);
+    for (Class<?> c : classes) {
+      Optional<TypeMirror> tm = this.getTypeMirror(c);
+      if (tm.isEmpty()) {
+        return Optional.empty();
+      }
+      result.add(tm.get());
+    }
+    return Optional.of(result);
   }
 
   public boolean isSameType(TypeMirror left, TypeMirror right) {
     return GigeTypes.isSameType(this.getProcessingEnvironment(), left, right);
   }
 
+  /** classes are resolved by their canonical names, so nested classes are found too. */
   public Optional<TypeMirror> getTypeMirror(Class<?> clazz) {
-    return GigeTypes.getTypeMirror(this.getProcessingEnvironment(), clazz);
+    return this.getTypeMirror(clazz.getCanonicalName());
   }
 
   public Optional<TypeMirror> getTypeMirror(String className) {
-    return GigeTypes.getTypeMirror(this.getProcessingEnvironment(), className);
+    if (this.unknownMirrors.contains(className)) {
+      return Optional.empty();
+    }
+    Optional<TypeMirror> tm = GigeTypes.getTypeMirror(this.getProcessingEnvironment(), className);
+    if (tm.isEmpty()) {
+      this.unknownMirrors.add(className);
+    }
+    return tm;
   }
 
   public Optional<String> findOutputSource(Class<?> clazz) throws IOException {
@@ -206,6 +323,52 @@ public class ProcessorContext {
     this.assertEquals(Files.newBufferedReader(expectedSource), outputClassName);
   }
 
+  public void assertEquals(
+      Reader expected, String outputClassName, SourceComparator comparator) throws IOException {
+    JavaFileObject obj =
+        this.getManager()
+            .getJavaFileForInput(StandardLocation.SOURCE_OUTPUT, outputClassName, Kind.SOURCE);
+    Assertions.assertNotNull(obj);
+    try (Reader r = expected) {
+      Asserts.assertEqualsByLine(this.read(r), obj.getCharContent(true), comparator);
+    }
+  }
+
+  public void assertEquals(
+      String expectedSource, Class<?> outputClass, SourceComparator comparator)
+      throws IOException {
+    this.assertEquals(expectedSource, outputClass.getCanonicalName(), comparator);
+  }
+
+  public void assertEquals(Path expectedSource, Class<?> outputClass, SourceComparator comparator)
+      throws IOException {
+    this.assertEquals(expectedSource, outputClass.getCanonicalName(), comparator);
+  }
+
+  public void assertEquals(
+      String expectedSource, String outputClassName, SourceComparator comparator)
+      throws IOException {
+    this.assertEquals(new StringReader(expectedSource), outputClassName, comparator);
+  }
+
+  public void assertEquals(
+      Path expectedSource, String outputClassName, SourceComparator comparator)
+      throws IOException {
+    this.assertEquals(Files.newBufferedReader(expectedSource), outputClassName, comparator);
+  }
+
+  protected CharBuffer read(Reader reader) throws IOException {
+    CharBuffer buf = CharBuffer.allocate(8192);
+    while (reader.read(buf) != -1) {
+      if (buf.hasRemaining() == false) {
+        CharBuffer bigger = CharBuffer.allocate(buf.capacity() * 2);
+        buf.flip();
+        buf = bigger.put(buf);
+      }
+    }
+    return buf.flip();
+  }
+
   protected Optional<String> toString(FileObject obj) throws IOException {
     if (obj == null) {
       return Optional.empty();
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaFileObject.Kind;
+
+import org.junit.jupiter.api.Assertions;
+
+import io.gige.util.SourceComparator;
+
+/**
+ * golden files of generated sources and resources.
+ *
+ * <p>each snapshot is a manifest of SHA-256 digests of SOURCE_OUTPUT contents except class files,
+ * stored as {@code <directory>/<key>.snapshot}. contents are stored once under {@code
+ * <directory>/objects}, named by their digest. verification compares digests only, and reads
+ * stored contents to report a diff when they differ.
+ *
+ * <p>a missing snapshot fails. set the system property {@value #UPDATE} to {@code true} to record
+ * missing snapshots and all others again. recording removes contents which no snapshot refers to.
+ *
+ * @author taichi
+ */
+public class SnapshotStore {
+
+  /** system property to record snapshots instead of verifying them. */
+  public static final String UPDATE = "gige.snapshot.update";
+
+  static final String SUFFIX = ".snapshot";
+
+  /** recording and pruning of stores in this process do not interleave. */
+  static final Object LOCK = new Object();
+
+  final Path directory;
+
+  final boolean update;
+
+  SourceComparator comparator = SourceComparator.EXACT;
+
+  Charset charset = StandardCharsets.UTF_8;
+
+  public SnapshotStore() {
+    this(Paths.get("src", "test", "snapshots"), Boolean.getBoolean(UPDATE));
+  }
+
+  public SnapshotStore(Path directory, boolean update) {
+    Assertions.assertNotNull(directory);
+    this.directory = directory;
+    this.update = update;
+  }
+
+  /** contents with different digests still match if they are same by the comparator. */
+  public SnapshotStore set(SourceComparator comparator) {
+    Assertions.assertNotNull(comparator);
+    this.comparator = comparator;
+    return this;
+  }
+
+  public SnapshotStore set(Charset charset) {
+    Assertions.assertNotNull(charset);
+    this.charset = charset;
+    return this;
+  }
+
+  /** @param key path of the snapshot, such as {@code io.gige.FooTest/bar/Standard}. */
+  public Snapshot of(String key) {
+    Assertions.assertNotNull(key);
+    return new Snapshot(this, key);
+  }
+
+  public void verify(String key, CompilationResult result) throws IOException {
+    Map<String, byte[]> outputs = result.getOutputs();
+    Map<String, String> actual = new TreeMap<>();
+    outputs.forEach(
+        (k, v) -> {
+          // class files depend on the compiler version, and they share SOURCE_OUTPUT by default.
+          if (k.endsWith(Kind.CLASS.extension) == false) {
+            actual.put(k, CompilationCache.toHex(digest(v)));
+          }
+        });
+    Path manifest = this.directory.resolve(key + SUFFIX);
+    if (this.update) {
+      this.record(manifest, actual, outputs);
+      return;
+    }
+    Optional<Map<String, String>> expected = this.read(manifest);
+    if (expected.isEmpty()) {
+      Assertions.fail(
+          "snapshot " + key + " is missing. set -D" + UPDATE + "=true to record it.\n"
+              + String.join("\n", actual.keySet()));
+    }
+    List<String> failures = new ArrayList<>();
+    TreeSet<String> names = new TreeSet<>(expected.get().keySet());
+    names.addAll(actual.keySet());
+    for (String name : names) {
+      String left = expected.get().get(name);
+      String right = actual.get(name);
+      if (left == null) {
+        failures.add("unexpected: " + name + "\n");
+      } else if (right == null) {
+        failures.add("missing: " + name + "\n");
+      } else if (left.equals(right) == false) {
+        CharSequence l = this.charset.decode(ByteBuffer.wrap(this.load(left)));
+        CharSequence r = this.charset.decode(ByteBuffer.wrap(outputs.get(name)));
+        if (this.comparator.matches(l, r) == false) {
+          failures.add("changed: " + name + "\n" + this.comparator.diff(l, r));
+        }
+      }
+    }
+    if (failures.isEmpty() == false) {
+      Assertions.fail(
+          "snapshot " + key + " differs. set -D" + UPDATE + "=true to update.\n"
+              + String.join("", failures));
+    }
+  }
+
+  static byte[] digest(byte[] bytes) {
+    return CompilationCache.newDigest().digest(bytes);
+  }
+
+  protected Optional<Map<String, String>> read(Path manifest) throws IOException {
+    if (Files.exists(manifest) == false) {
+      return Optional.empty();
+    }
+    Map<String, String> result = new TreeMap<>();
+    for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+      int sp = line.indexOf(' ');
+      if (0 < sp) {
+        result.put(line.substring(sp + 1), line.substring(0, sp));
+      }
+    }
+    return Optional.of(result);
+  }
+
+  protected void record(Path manifest, Map<String, String> digests, Map<String, byte[]> outputs)
+      throws IOException {
+    synchronized (LOCK) {
+      for (Map.Entry<String, String> e : digests.entrySet()) {
+        Path obj = this.toObject(e.getValue());
+        if (Files.exists(obj) == false) {
+          this.write(obj, outputs.get(e.getKey()));
+        }
+      }
+      StringBuilder stb = new StringBuilder();
+      digests.forEach((k, v) -> stb.append(v).append(' ').append(k).append('\n'));
+      this.write(manifest, stb.toString().getBytes(StandardCharsets.UTF_8));
+      this.prune();
+    }
+  }
+
+  /** removes contents which no snapshot refers to. */
+  public void prune() throws IOException {
+    Path objects = this.directory.resolve("objects");
+    if (Files.isDirectory(objects) == false) {
+      return;
+    }
+    synchronized (LOCK) {
+      Set<String> referred = new HashSet<>();
+      List<Path> manifests;
+      try (Stream<Path> files = Files.walk(this.directory)) {
+        manifests =
+            files
+                .filter(p -> p.startsWith(objects) == false)
+                .filter(p -> p.getFileName().toString().endsWith(SUFFIX))
+                .collect(Collectors.toList());
+      }
+      for (Path p : manifests) {
+        this.read(p).ifPresent(m -> referred.addAll(m.values()));
+      }
+      List<Path> garbage;
+      try (Stream<Path> files = Files.walk(objects)) {
+        garbage =
+            files
+                .filter(Files::isRegularFile)
+                .filter(p -> referred.contains(p.getFileName().toString()) == false)
+                .collect(Collectors.toList());
+      }
+      for (Path p : garbage) {
+        Files.deleteIfExists(p);
+        try (Stream<Path> rest = Files.list(p.getParent())) {
+          if (rest.findAny().isEmpty()) {
+            Files.deleteIfExists(p.getParent());
+          }
+        }
+      }
+    }
+  }
+
+  protected byte[] load(String digest) throws IOException {
+    return Files.readAllBytes(this.toObject(digest));
+  }
+
+  protected Path toObject(String digest) {
+    return this.directory.resolve("objects").resolve(digest.substring(0, 2)).resolve(digest);
+  }
+
+  protected void write(Path path, byte[] bytes) throws IOException {
+    Files.createDirectories(path.getParent());
+    Path tmp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tmp, bytes);
+      try {
+        Files.move(
+            tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /** a snapshot bound to a key. */
+  public static class Snapshot {
+
+    final SnapshotStore store;
+
+    final String key;
+
+    Snapshot(SnapshotStore store, String key) {
+      this.store = store;
+      this.key = key;
+    }
+
+    public String getKey() {
+      return this.key;
+    }
+
+    public void verify(CompilationResult result) throws IOException {
+      this.store.verify(this.key, result);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.Processor;
+
+/**
+ * elapsed time of a compilation, per phase and per annotation processing round.
+ *
+ * <p>phases may nest. PARSE of generated sources happens inside PROCESSING, and ASSERTION is a
+ * part of the last round. on Eclipse, ANALYZE includes byte code generation and GENERATE is
+ * writing class files.
+ *
+ * <p>rounds are recorded only if {@link CompilerContext#timeProcessors()} is set. no round
+ * environment is kept, so results do not retain the compiler.
+ *
+ * @author taichi
+ */
+public class Timings {
+
+  public enum Phase {
+    /** creating or leasing the compiler and file manager. */
+    SETUP,
+    /** converting units to file objects. */
+    MAPPING,
+    /** parse and enter. */
+    PARSE,
+    /** all annotation processing rounds. */
+    PROCESSING,
+    ANALYZE,
+    GENERATE,
+    /** the assertion block. */
+    ASSERTION
+  }
+
+  final Map<Phase, Long> phases = new EnumMap<>(Phase.class);
+
+  final List<Map<String, Long>> rounds = new ArrayList<>();
+
+  /** elapsed time of the current round, or {@code null} until any processor runs in it. */
+  Map<String, Long> current;
+
+  public synchronized void add(Phase phase, long nanos) {
+    this.phases.merge(phase, nanos, Long::sum);
+  }
+
+  public synchronized void add(Processor processor, long nanos) {
+    if (this.current == null) {
+      this.current = new LinkedHashMap<>();
+      this.rounds.add(this.current);
+    }
+    this.current.merge(processor.getClass().getName(), nanos, Long::sum);
+  }
+
+  /** called at the end of each round, by the last processor. */
+  public synchronized void nextRound() {
+    this.current = null;
+  }
+
+  public synchronized Duration get(Phase phase) {
+    return Duration.ofNanos(this.phases.getOrDefault(phase, 0L));
+  }
+
+  /** @return number of rounds in which any processor except the assertion block ran. */
+  public synchronized int getRounds() {
+    return this.rounds.size();
+  }
+
+  /** @return elapsed time of each processor class in the round, in invocation order. */
+  public synchronized Map<String, Duration> getRound(int index) {
+    return this.toDurations(this.rounds.get(index));
+  }
+
+  /** @return elapsed time of each processor class over all rounds. */
+  public synchronized Map<String, Duration> getProcessors() {
+    Map<String, Long> total = new LinkedHashMap<>();
+    this.rounds.forEach(m -> m.forEach((k, v) -> total.merge(k, v, Long::sum)));
+    return this.toDurations(total);
+  }
+
+  protected Map<String, Duration> toDurations(Map<String, Long> map) {
+    Map<String, Duration> result = new LinkedHashMap<>();
+    map.forEach((k, v) -> result.put(k, Duration.ofNanos(v)));
+    return Collections.unmodifiableMap(result);
+  }
+
+  @Override
+  public synchronized String toString() {
+    StringBuilder stb = new StringBuilder();
+    for (Phase p : Phase.values()) {
+      stb.append(p).append(": ").append(this.get(p).toMillis()).append("ms\n");
+    }
+    for (int i = 0; i < this.rounds.size(); i++) {
+      final int round = i;
+      this.getRound(i)
+          .forEach(
+              (k, v) ->
+                  stb.append("round ")
+                      .append(round + 1)
+                      .append(' ')
+                      .append(k)
+                      .append(": ")
+                      .append(v.toMillis())
+                      .append("ms\n"));
+    }
+    return stb.toString();
+  }
+}
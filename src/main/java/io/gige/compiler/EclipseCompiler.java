@@ -64,13 +64,20 @@ public class EclipseCompiler implements JavaCompiler {
       fileManager.handleOption(i.next(), i);
     }
 
+    StandardJavaFileManager standard;
+    FileSystem fs;
+    synchronized (this) {
+      standard = this.provided;
+      fs = this.filesystem;
+    }
+
     PrintWriter pw = out == null ? new PrintWriter(System.err, true) : new PrintWriter(out);
     CompilationTaskImpl task = new CompilationTaskImpl();
     task.configure(
         pw,
         fileManager,
-        this.provided,
-        this.filesystem,
+        standard,
+        fs,
         diagnosticListener,
         options,
         classes,
@@ -79,7 +86,7 @@ public class EclipseCompiler implements JavaCompiler {
   }
 
   @Override
-  public StandardJavaFileManager getStandardFileManager(
+  public synchronized StandardJavaFileManager getStandardFileManager(
       DiagnosticListener<? super JavaFileObject> diagnosticListener,
       Locale locale,
       Charset charset) {
@@ -91,21 +98,20 @@ public class EclipseCompiler implements JavaCompiler {
   }
 
   protected StandardJavaFileManager newFileManager(Locale locale, Charset charset) {
-    final String OS = "os.name";
-    String current = System.getProperty(OS);
-    try {
-      System.setProperty(OS, "xxx");
-      return new EclipseFileManager(locale, charset) {
-        @Override
-        public void close() throws IOException {
-          super.close();
-          EclipseCompiler.this.filesystem.cleanup();
-          EclipseCompiler.this.provided = null;
-          EclipseCompiler.this.filesystem = null;
-        }
-      };
-    } finally {
-      System.setProperty(OS, current);
+    return new EclipseFileManager(locale, charset) {
+      @Override
+      public void close() throws IOException {
+        super.close();
+        EclipseCompiler.this.closed(this);
+      }
+    };
+  }
+
+  protected synchronized void closed(StandardJavaFileManager manager) {
+    if (this.provided == manager) {
+      this.filesystem.cleanup();
+      this.provided = null;
+      this.filesystem = null;
     }
   }
 
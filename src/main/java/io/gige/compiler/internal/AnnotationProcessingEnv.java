@@ -31,19 +31,31 @@ import org.eclipse.jdt.internal.compiler.problem.AbortCompilation;
 /** @author taichi */
 public class AnnotationProcessingEnv extends BaseProcessingEnvImpl {
 
+  /** system property to install {@link HackElements}, which fixes up annotation defaults. */
+  public static final String FIXUP_DEFAULTS = "gige.eclipse.fixupDefaults";
+
   protected Locale locale = Locale.getDefault();
 
+  protected final SourceLocator locator;
+
   public AnnotationProcessingEnv(
       JavaFileManager fileManager,
       DiagnosticListener<? super JavaFileObject> diagnosticListener,
       Iterable<String> options,
-      Compiler compiler) {
+      Compiler compiler,
+      SourceLocator locator) {
     super();
-    this._filer = new FilerImpl(fileManager, this);
-    this._messager = new MessagerImpl(this, diagnosticListener);
+    this.locator = locator;
+    this._filer = new FilerImpl(fileManager, this, locator);
+    this._messager = new MessagerImpl(this, diagnosticListener, locator);
     this._processorOptions = this.parseProcessorOptions(options);
     this._compiler = compiler;
-    this._elementUtils = ElementsImpl.create(this);
+    this._elementUtils =
+        Boolean.getBoolean(FIXUP_DEFAULTS) ? new HackElements(this) : ElementsImpl.create(this);
+  }
+
+  public SourceLocator getLocator() {
+    return this.locator;
   }
 
   public void setLocale(Locale locale) {
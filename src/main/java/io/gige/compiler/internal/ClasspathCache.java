@@ -0,0 +1,144 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.compiler.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+import org.eclipse.jdt.internal.compiler.batch.FileSystem.Classpath;
+
+/**
+ * process wide, reference counted cache of read only classpath entries.
+ *
+ * <p>an entry is keyed by its path and a stamp. when the stamp of a path changes, the old entry is
+ * evicted and reset after the last compilation using it has released it.
+ *
+ * @author taichi
+ */
+public class ClasspathCache {
+
+  static final ClasspathCache INSTANCE = new ClasspathCache();
+
+  public static ClasspathCache getInstance() {
+    return INSTANCE;
+  }
+
+  final Map<String, Entry> entries = new HashMap<>();
+
+  final Map<Classpath, Entry> inUse = new IdentityHashMap<>();
+
+  static class Entry {
+    final Object stamp;
+    final Classpath classpath;
+    int references;
+    boolean evicted;
+
+    Entry(Object stamp, Classpath classpath) {
+      this.stamp = stamp;
+      this.classpath = classpath;
+    }
+  }
+
+  /** platform libraries of the given java home. these never change while the VM is alive. */
+  public Classpath acquireJrt(File javaHome) {
+    String path = javaHome.getAbsolutePath();
+    return this.acquire(
+        "jrt:" + path, path, () -> FileSystem.getJrtClasspath(path, null, null, null));
+  }
+
+  /** returns {@code null} when the file is not a cacheable archive. */
+  public Classpath acquireArchive(File file) {
+    if (file.isFile() == false) {
+      return null;
+    }
+    String path = file.getAbsolutePath();
+    return this.acquire(
+        "jar:" + path,
+        List.of(file.lastModified(), file.length()),
+        () -> FileSystem.getClasspath(path, null, null));
+  }
+
+  protected synchronized Classpath acquire(String key, Object stamp, Supplier<Classpath> factory) {
+    Entry e = this.entries.get(key);
+    if (e != null && Objects.equals(e.stamp, stamp) == false) {
+      this.evict(key, e);
+      e = null;
+    }
+    if (e == null) {
+      Classpath cp = factory.get();
+      if (cp == null) {
+        return null;
+      }
+      try {
+        this.warm(cp);
+      } catch (IOException ex) {
+        return null;
+      }
+      e = new Entry(stamp, cp);
+      this.entries.put(key, e);
+    }
+    e.references++;
+    this.inUse.put(e.classpath, e);
+    return e.classpath;
+  }
+
+  /**
+   * builds lazily initialized state while we hold the lock, so that concurrent compilations only
+   * read it.
+   */
+  protected void warm(Classpath cp) throws IOException {
+    cp.initialize();
+    cp.getModuleNames(null);
+    cp.getModulesDeclaringPackage("", null);
+  }
+
+  protected void evict(String key, Entry e) {
+    this.entries.remove(key);
+    e.evicted = true;
+    if (e.references < 1) {
+      e.classpath.reset();
+    }
+  }
+
+  /** @return {@code false} if the classpath is not managed by this cache. */
+  public synchronized boolean release(Classpath classpath) {
+    Entry e = this.inUse.get(classpath);
+    if (e == null) {
+      return false;
+    }
+    if (--e.references < 1) {
+      this.inUse.remove(classpath);
+      if (e.evicted) {
+        e.classpath.reset();
+      }
+    }
+    return true;
+  }
+
+  /** resets and forgets every entry which is not used now. */
+  public synchronized void clear() {
+    for (Map.Entry<String, Entry> e : Map.copyOf(this.entries).entrySet()) {
+      this.evict(e.getKey(), e.getValue());
+    }
+  }
+}
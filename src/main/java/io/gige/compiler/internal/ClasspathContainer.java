@@ -16,7 +16,9 @@
 package io.gige.compiler.internal;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -25,17 +27,26 @@ import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
 
 import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+import org.eclipse.jdt.internal.compiler.util.JRTUtil;
 import org.eclipse.jdt.internal.compiler.util.Util;
 
 /** @author taichi */
 public class ClasspathContainer extends FileSystem {
 
-  protected ClasspathContainer(Classpath[] paths) {
+  /** entries acquired from {@link ClasspathCache}, once per acquisition. */
+  final List<Classpath> shared;
+
+  boolean cleaned = false;
+
+  protected ClasspathContainer(Classpath[] paths, List<Classpath> shared) {
     super(paths, null, true);
+    this.shared = shared;
   }
 
   public static FileSystem configure(StandardJavaFileManager standardManager) {
-    var platform = Util.collectPlatformLibraries(Util.getJavaHome()).stream();
+    ClasspathCache cache = ClasspathCache.getInstance();
+    List<Classpath> shared = new ArrayList<>();
+    var platform = platform(cache, shared);
     var standards =
         Arrays.asList(
                 StandardLocation.SOURCE_PATH,
@@ -48,10 +59,44 @@ public class ClasspathContainer extends FileSystem {
             .<File>flatMap(files -> StreamSupport.stream(files.spliterator(), false))
             .map(
                 file -> {
+                  Classpath cp = cache.acquireArchive(file);
+                  if (cp != null) {
+                    shared.add(cp);
+                    return cp;
+                  }
+                  // directories are mutable, so they are not shared.
                   return FileSystem.getClasspath(file.getAbsolutePath(), null, null);
                 })
             .filter(cp -> cp != null);
     Classpath[] paths = Stream.concat(platform, standards).toArray(Classpath[]::new);
-    return new ClasspathContainer(paths);
+    return new ClasspathContainer(paths, shared);
+  }
+
+  static Stream<Classpath> platform(ClasspathCache cache, List<Classpath> shared) {
+    File javaHome = Util.getJavaHome();
+    if (javaHome != null && new File(new File(javaHome, "lib"), JRTUtil.JRT_FS_JAR).exists()) {
+      Classpath jrt = cache.acquireJrt(javaHome);
+      if (jrt != null) {
+        shared.add(jrt);
+        return Stream.of(jrt);
+      }
+    }
+    return Util.collectPlatformLibraries(javaHome).stream();
+  }
+
+  @Override
+  public synchronized void cleanup() {
+    if (this.cleaned) {
+      return;
+    }
+    this.cleaned = true;
+    ClasspathCache cache = ClasspathCache.getInstance();
+    for (Classpath cp : this.classpaths) {
+      if (this.shared.stream().noneMatch(s -> s == cp)) {
+        cp.reset();
+      }
+    }
+    // release everything we acquired, including entries FileSystem dropped while initializing.
+    this.shared.forEach(cache::release);
   }
 }
@@ -18,10 +18,15 @@ package io.gige.compiler.internal;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.net.URI;
+import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -32,12 +37,15 @@ import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
 import org.eclipse.jdt.internal.compiler.Compiler;
 import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
-import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
 import org.eclipse.jdt.internal.compiler.IErrorHandlingPolicy;
 import org.eclipse.jdt.internal.compiler.batch.CompilationUnit;
 import org.eclipse.jdt.internal.compiler.batch.FileSystem;
+import org.eclipse.jdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.eclipse.jdt.internal.compiler.batch.Main;
 import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
 import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
@@ -52,8 +60,11 @@ public class CompilationTaskImpl implements CompilationTask {
   protected AnnotationProcessingEnv processingEnv;
   protected AnnotationProcessorManager processorManager;
 
-  boolean called = false;
+  final AtomicBoolean called = new AtomicBoolean(false);
+  final SourceLocator locator = new SourceLocator();
+  final List<TaskListener> taskListeners = new CopyOnWriteArrayList<>();
   Compiler compiler = null;
+  CompilerRequestorImpl requestor;
   ICompilationUnit[] targets;
 
   public void configure(
@@ -72,13 +83,13 @@ public class CompilationTaskImpl implements CompilationTask {
     Main main = this.parseOptions(out, argv, compilationUnits);
     CompilerOptions options = new CompilerOptions(main.options);
     options.verbose = main.verbose;
-    ICompilerRequestor requestor = new CompilerRequestorImpl(standardManager, this.errorTrapper);
+    this.requestor = new CompilerRequestorImpl(fileManager, this.errorTrapper, this.locator);
     this.compiler =
         new Compiler(
             environment,
             this.getHandlingPolicy(),
             options,
-            requestor,
+            this.requestor,
             this.problemFactory,
             out,
             null) {
@@ -91,12 +102,29 @@ public class CompilationTaskImpl implements CompilationTask {
           public boolean shouldCleanup(int index) {
             return false;
           }
+
+          @Override
+          protected void beginToCompile(ICompilationUnit[] sourceUnits) {
+            fire(TaskEvent.Kind.PARSE, () -> super.beginToCompile(sourceUnits));
+          }
+
+          @Override
+          protected void processAnnotations() {
+            fire(TaskEvent.Kind.ANNOTATION_PROCESSING, super::processAnnotations);
+          }
+
+          @Override
+          public void process(CompilationUnitDeclaration unit, int i) {
+            // includes code generation
+            fire(TaskEvent.Kind.ANALYZE, () -> super.process(unit, i));
+          }
         };
 
     this.setTargets(compilationUnits);
 
     this.processingEnv =
-        new AnnotationProcessingEnv(fileManager, this.errorTrapper, argv, this.compiler);
+        new AnnotationProcessingEnv(
+            fileManager, this.errorTrapper, argv, this.compiler, this.locator);
     this.processorManager = new AnnotationProcessorManager(this.processingEnv);
     this.processorManager.configure(argv);
     this.processorManager.setOut(out);
@@ -120,42 +148,118 @@ public class CompilationTaskImpl implements CompilationTask {
         Stream.concat(
             StreamSupport.stream(argv.spliterator(), false),
             StreamSupport.stream(compilationUnits.spliterator(), false)
-                .map(JavaFileObject::toUri)
-                .map(uri -> new File(uri).getAbsolutePath()));
+                .map(this::toPath));
 
     Main main = new Main(out, out, false, defaults, null);
     main.configure(files.toArray(String[]::new));
     return main;
   }
 
+  protected String toPath(JavaFileObject file) {
+    URI uri = file.toUri();
+    if ("file".equals(uri.getScheme())) {
+      return new File(uri).getAbsolutePath();
+    }
+    // in-memory file objects have no local path.
+    return file.getName();
+  }
+
   protected void setTargets(Iterable<? extends JavaFileObject> compilationUnits) {
+    SourceLocator locator = this.locator;
     this.targets =
         StreamSupport.stream(compilationUnits.spliterator(), false)
             .filter(file -> file.getKind() == JavaFileObject.Kind.SOURCE)
+            .peek(file -> locator.register(file.getName(), file))
             .map(
                 file ->
                     new CompilationUnit(null, file.getName(), null) {
+                      char[] contents;
+
                       @Override
                       public char[] getContents() {
-                        try {
-                          return file.getCharContent(true).toString().toCharArray();
-                        } catch (IOException e) {
-                          throw new AbortCompilationUnit(null, e, null);
+                        // ECJ asks again to report problems.
+                        if (this.contents == null) {
+                          try {
+                            this.contents = toChars(file.getCharContent(true));
+                            locator.register(file.getName(), this.contents);
+                          } catch (IOException e) {
+                            throw new AbortCompilationUnit(null, e, null);
+                          }
                         }
+                        return this.contents;
                       }
                     })
             .toArray(ICompilationUnit[]::new);
   }
 
+  protected static char[] toChars(CharSequence content) {
+    if (content instanceof String) {
+      return ((String) content).toCharArray();
+    }
+    // copy once, without an intermediate String.
+    char[] chars = new char[content.length()];
+    if (content instanceof CharBuffer) {
+      ((CharBuffer) content).duplicate().get(chars);
+    } else if (content instanceof StringBuilder) {
+      ((StringBuilder) content).getChars(0, chars.length, chars, 0);
+    } else {
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = content.charAt(i);
+      }
+    }
+    return chars;
+  }
+
   @Override
   public Boolean call() {
-    if (this.called) {
+    if (this.called.compareAndSet(false, true) == false) {
       throw new IllegalStateException("This task has already been run");
     }
-    this.compiler.compile(this.targets);
+    try {
+      this.compiler.compile(this.targets);
+      if (this.compiler.options.generateClassFiles == false) {
+        this.acceptProcessedUnits();
+      }
+    } catch (RuntimeException | Error e) {
+      this.requestor.discard();
+      throw e;
+    }
+    // class files must be in CLASS_OUTPUT before the result is returned.
+    this.fire(TaskEvent.Kind.GENERATE, this.requestor::flush);
     return this.errorTrapper.succeed();
   }
 
+  /** -proc:only returns before the requestor receives the parsed units and their problems. */
+  protected void acceptProcessedUnits() {
+    for (int i = 0; i < this.compiler.totalUnits; i++) {
+      CompilationUnitDeclaration unit = this.compiler.unitsToProcess[i];
+      if (unit != null
+          && unit.compilationResult != null
+          && unit.compilationResult.hasBeenAccepted == false) {
+        this.requestor.acceptResult(unit.compilationResult.tagAsAccepted());
+      }
+    }
+  }
+
+  /** same as {@code JavacTask#addTaskListener}, but events carry no compilation unit. */
+  public void addTaskListener(TaskListener listener) {
+    this.taskListeners.add(listener);
+  }
+
+  protected void fire(TaskEvent.Kind kind, Runnable phase) {
+    if (this.taskListeners.isEmpty()) {
+      phase.run();
+      return;
+    }
+    TaskEvent event = new TaskEvent(kind);
+    this.taskListeners.forEach(l -> l.started(event));
+    try {
+      phase.run();
+    } finally {
+      this.taskListeners.forEach(l -> l.finished(event));
+    }
+  }
+
   @Override
   public void setProcessors(Iterable<? extends Processor> processors) {
     this.processorManager.setProcessors(
@@ -16,14 +16,21 @@
 package io.gige.compiler.internal;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 import javax.tools.Diagnostic.Kind;
 import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
-import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
 
 import org.eclipse.jdt.core.compiler.CategorizedProblem;
@@ -31,17 +38,35 @@ import org.eclipse.jdt.internal.compiler.ClassFile;
 import org.eclipse.jdt.internal.compiler.CompilationResult;
 import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
 
-/** @author taichi */
+/**
+ * class files are written behind the compiler in batches. call {@link #flush()} before reading
+ * them, or {@link #discard()} if the compilation fails.
+ *
+ * @author taichi
+ */
 public class CompilerRequestorImpl implements ICompilerRequestor {
 
-  final StandardJavaFileManager manager;
+  static final int BATCH_SIZE = 32;
+
+  static final int WRITERS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+  final JavaFileManager manager;
   final DiagnosticListener<? super JavaFileObject> diagnosticListener;
+  final SourceLocator locator;
+
+  final List<ClassOutput> pending = new ArrayList<>();
+  final List<Future<?>> batches = new ArrayList<>();
+
+  /** created on the first batch, and shut down with this compilation. */
+  ExecutorService writer;
 
   public CompilerRequestorImpl(
-      StandardJavaFileManager manager,
-      DiagnosticListener<? super JavaFileObject> diagnosticListener) {
+      JavaFileManager manager,
+      DiagnosticListener<? super JavaFileObject> diagnosticListener,
+      SourceLocator locator) {
     this.manager = manager;
     this.diagnosticListener = diagnosticListener;
+    this.locator = locator;
   }
 
   @Override
@@ -55,24 +80,110 @@ public class CompilerRequestorImpl implements ICompilerRequestor {
     try {
       for (ClassFile cf : result.getClassFiles()) {
         String className = new String(cf.fileName());
+        // the file manager is used only on the compiler thread.
         JavaFileObject obj =
             this.manager.getJavaFileForOutput(
                 StandardLocation.CLASS_OUTPUT,
                 className,
                 javax.tools.JavaFileObject.Kind.CLASS,
                 null);
-        try (OutputStream out = obj.openOutputStream()) {
-          out.write(cf.getBytes());
-        }
+        this.pending.add(new ClassOutput(obj, cf.getBytes()));
       }
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
+    if (BATCH_SIZE <= this.pending.size()) {
+      var batch = new ArrayList<>(this.pending);
+      this.pending.clear();
+      if (this.writer == null) {
+        this.writer =
+            Executors.newFixedThreadPool(
+                WRITERS,
+                r -> {
+                  Thread t = new Thread(r, "gige-class-writer");
+                  t.setDaemon(true);
+                  return t;
+                });
+      }
+      this.batches.add(
+          this.writer.submit(
+              () -> {
+                write(batch);
+                return null;
+              }));
+    }
+  }
+
+  /** writes the rest and waits for the batches in background. */
+  public void flush() {
+    IOException failure = null;
+    try {
+      write(this.pending);
+    } catch (IOException e) {
+      failure = e;
+    } finally {
+      this.pending.clear();
+      this.shutdown();
+    }
+    for (Future<?> f : this.batches) {
+      try {
+        f.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure = failure == null ? new InterruptedIOException() : failure;
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          failure = failure == null ? (IOException) cause : failure;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else {
+          throw new IllegalStateException(cause);
+        }
+      }
+    }
+    this.batches.clear();
+    if (failure != null) {
+      throw new UncheckedIOException(failure);
+    }
+  }
+
+  /** drops the rest. batches in background are not waited for. */
+  public void discard() {
+    this.pending.clear();
+    this.batches.clear();
+    this.shutdown();
+  }
+
+  protected void shutdown() {
+    if (this.writer != null) {
+      // submitted batches still run.
+      this.writer.shutdown();
+      this.writer = null;
+    }
+  }
+
+  static void write(List<ClassOutput> outputs) throws IOException {
+    for (ClassOutput o : outputs) {
+      try (OutputStream out = o.file.openOutputStream()) {
+        out.write(o.bytes);
+      }
+    }
   }
 
   protected void report(Kind kind, CategorizedProblem[] problems) {
     Stream.of(problems)
-        .map(p -> new DiagnosticAdapter(kind, p))
+        .map(p -> new DiagnosticAdapter(kind, p, this.locator))
         .forEach(this.diagnosticListener::report);
   }
+
+  static class ClassOutput {
+    final JavaFileObject file;
+    final byte[] bytes;
+
+    ClassOutput(JavaFileObject file, byte[] bytes) {
+      this.file = file;
+      this.bytes = bytes;
+    }
+  }
 }
@@ -15,24 +15,27 @@
  */
 package io.gige.compiler.internal;
 
-import java.io.File;
 import java.util.Locale;
 
 import javax.tools.Diagnostic;
 import javax.tools.JavaFileObject;
 
 import org.eclipse.jdt.core.compiler.IProblem;
-import org.eclipse.jdt.internal.compiler.apt.util.EclipseFileObject;
 
 /** @author taichi */
 public class DiagnosticAdapter implements Diagnostic<JavaFileObject> {
 
   final Kind kind;
   final IProblem problem;
+  final SourceLocator locator;
 
-  public DiagnosticAdapter(Kind kind, IProblem problem) {
+  volatile JavaFileObject source;
+  volatile boolean located = false;
+
+  public DiagnosticAdapter(Kind kind, IProblem problem, SourceLocator locator) {
     this.kind = kind;
     this.problem = problem;
+    this.locator = locator;
   }
 
   @Override
@@ -42,15 +45,11 @@ public class DiagnosticAdapter implements Diagnostic<JavaFileObject> {
 
   @Override
   public JavaFileObject getSource() {
-    char[] filename = this.problem.getOriginatingFileName();
-    if (filename == null) {
-      return null;
-    }
-    File file = new File(new String(filename));
-    if (file.exists()) {
-      return new EclipseFileObject(null, file.toURI(), JavaFileObject.Kind.SOURCE, null);
+    if (this.located == false) {
+      this.source = this.locator.locate(this.problem.getOriginatingFileName());
+      this.located = true;
     }
-    return null;
+    return this.source;
   }
 
   @Override
@@ -70,12 +69,18 @@ public class DiagnosticAdapter implements Diagnostic<JavaFileObject> {
 
   @Override
   public long getLineNumber() {
-    return this.problem.getSourceLineNumber();
+    int line = this.problem.getSourceLineNumber();
+    if (0 < line) {
+      return line;
+    }
+    LineIndex index = this.locator.lines(this.problem.getOriginatingFileName());
+    return index == null ? NOPOS : index.getLineNumber(this.getPosition());
   }
 
   @Override
   public long getColumnNumber() {
-    return NOPOS;
+    LineIndex index = this.locator.lines(this.problem.getOriginatingFileName());
+    return index == null ? NOPOS : index.getColumnNumber(this.getPosition());
   }
 
   @Override
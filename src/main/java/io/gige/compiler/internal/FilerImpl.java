@@ -39,10 +39,12 @@ public class FilerImpl implements Filer {
   protected final JavaFileManager _fileManager;
   protected final BaseProcessingEnvImpl _env;
   protected final HashSet<URI> _createdFiles = new HashSet<>();
+  protected final SourceLocator _locator;
 
-  public FilerImpl(JavaFileManager fileManager, BaseProcessingEnvImpl env) {
+  public FilerImpl(JavaFileManager fileManager, BaseProcessingEnvImpl env, SourceLocator locator) {
     this._fileManager = fileManager;
     this._env = env;
+    this._locator = locator;
   }
 
   public void addNewUnit(ICompilationUnit unit) {
@@ -158,6 +160,8 @@ public class FilerImpl implements Filer {
     }
 
     this._createdFiles.add(uri);
+    // problems in the generated unit originate from this name.
+    this._locator.register(jfo.getName(), jfo);
     // hook the file object's writers to create compilation unit and add to
     // addedUnits()
     return new HookedJavaFileObject(jfo, jfo.getName(), name.toString(), this);
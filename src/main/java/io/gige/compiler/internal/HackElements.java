@@ -15,6 +15,8 @@
  */
 package io.gige.compiler.internal;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 import javax.lang.model.element.AnnotationMirror;
@@ -23,17 +25,28 @@ import javax.lang.model.element.ExecutableElement;
 
 import org.eclipse.jdt.internal.compiler.apt.dispatch.BaseProcessingEnvImpl;
 import org.eclipse.jdt.internal.compiler.apt.model.AnnotationMirrorImpl;
-import org.eclipse.jdt.internal.compiler.apt.model.ElementsImpl;
+import org.eclipse.jdt.internal.compiler.apt.model.ElementsImpl9;
 import org.eclipse.jdt.internal.compiler.ast.ASTNode;
 import org.eclipse.jdt.internal.compiler.ast.AbstractMethodDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.AnnotationMethodDeclaration;
 import org.eclipse.jdt.internal.compiler.ast.Expression;
 import org.eclipse.jdt.internal.compiler.ast.QualifiedNameReference;
+import org.eclipse.jdt.internal.compiler.lookup.AnnotationBinding;
 import org.eclipse.jdt.internal.compiler.lookup.MethodBinding;
 import org.eclipse.jdt.internal.compiler.lookup.ReferenceBinding;
 
-/** @author taichi */
-class HackElements extends ElementsImpl {
+/**
+ * installed only if the system property {@value AnnotationProcessingEnv#FIXUP_DEFAULTS} is {@code
+ * true}.
+ *
+ * @author taichi
+ */
+class HackElements extends ElementsImpl9 {
+
+  /** mirrors are created on each access, so values are keyed by their bindings. */
+  final Map<AnnotationBinding, Map<? extends ExecutableElement, ? extends AnnotationValue>>
+      values = new IdentityHashMap<>();
+
   public HackElements(BaseProcessingEnvImpl env) {
     super(env);
   }
@@ -52,24 +65,34 @@ class HackElements extends ElementsImpl {
   @Override
   public Map<? extends ExecutableElement, ? extends AnnotationValue> getElementValuesWithDefaults(
       AnnotationMirror a) {
-    Map<? extends ExecutableElement, ? extends AnnotationValue> map =
-        super.getElementValuesWithDefaults(a);
     if (a instanceof AnnotationMirrorImpl) {
       AnnotationMirrorImpl impl = (AnnotationMirrorImpl) a;
-      ReferenceBinding annoType = impl._binding.getAnnotationType();
-      for (MethodBinding method : annoType.methods()) {
-        MethodBinding originalMethod = method.original();
-        AbstractMethodDeclaration methodDeclaration = originalMethod.sourceMethod();
-        if (methodDeclaration instanceof AnnotationMethodDeclaration) {
-          AnnotationMethodDeclaration amd = (AnnotationMethodDeclaration) methodDeclaration;
-          Expression exp = amd.defaultValue;
-          if (exp instanceof QualifiedNameReference) {
-            QualifiedNameReference qae = (QualifiedNameReference) exp;
-            qae.bits |= ASTNode.RestrictiveFlagMASK;
-          }
+      Map<? extends ExecutableElement, ? extends AnnotationValue> map =
+          this.values.get(impl._binding);
+      if (map == null) {
+        map = Collections.unmodifiableMap(super.getElementValuesWithDefaults(a));
+        this.values.put(impl._binding, map);
+        // resolving default values resets the flags. values are resolved once per binding, and
+        // fixed up after each resolution.
+        this.fixup(impl._binding.getAnnotationType());
+      }
+      return map;
+    }
+    return super.getElementValuesWithDefaults(a);
+  }
+
+  protected void fixup(ReferenceBinding annoType) {
+    for (MethodBinding method : annoType.methods()) {
+      MethodBinding originalMethod = method.original();
+      AbstractMethodDeclaration methodDeclaration = originalMethod.sourceMethod();
+      if (methodDeclaration instanceof AnnotationMethodDeclaration) {
+        AnnotationMethodDeclaration amd = (AnnotationMethodDeclaration) methodDeclaration;
+        Expression exp = amd.defaultValue;
+        if (exp instanceof QualifiedNameReference) {
+          QualifiedNameReference qae = (QualifiedNameReference) exp;
+          qae.bits |= ASTNode.RestrictiveFlagMASK;
         }
       }
     }
-    return map;
   }
 }
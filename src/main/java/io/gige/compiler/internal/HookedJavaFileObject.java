@@ -10,7 +10,9 @@
  */
 package io.gige.compiler.internal;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
 
@@ -37,23 +39,39 @@ public class HookedJavaFileObject extends ForwardingJavaFileObject<JavaFileObjec
   private class ForwardingWriter extends Writer {
     private final Writer _w;
 
-    ForwardingWriter(Writer w) {
+    // chars as written, null if nobody needs them.
+    private final StringBuilder _copy;
+
+    ForwardingWriter(Writer w, StringBuilder copy) {
       this._w = w;
+      this._copy = copy;
     }
 
     @Override
     public Writer append(char c) throws IOException {
-      return this._w.append(c);
+      this._w.append(c);
+      if (this._copy != null) {
+        this._copy.append(c);
+      }
+      return this;
     }
 
     @Override
     public Writer append(CharSequence csq, int start, int end) throws IOException {
-      return this._w.append(csq, start, end);
+      this._w.append(csq, start, end);
+      if (this._copy != null) {
+        this._copy.append(csq == null ? "null" : csq, start, end);
+      }
+      return this;
     }
 
     @Override
     public Writer append(CharSequence csq) throws IOException {
-      return this._w.append(csq);
+      this._w.append(csq);
+      if (this._copy != null) {
+        this._copy.append(csq);
+      }
+      return this;
     }
 
     // This is the only interesting method - it has to notify the
@@ -61,7 +79,7 @@ public class HookedJavaFileObject extends ForwardingJavaFileObject<JavaFileObjec
     @Override
     public void close() throws IOException {
       this._w.close();
-      HookedJavaFileObject.this.closed();
+      HookedJavaFileObject.this.closed(this._copy, null);
     }
 
     @Override
@@ -72,31 +90,46 @@ public class HookedJavaFileObject extends ForwardingJavaFileObject<JavaFileObjec
     @Override
     public void write(char[] cbuf) throws IOException {
       this._w.write(cbuf);
+      if (this._copy != null) {
+        this._copy.append(cbuf);
+      }
     }
 
     @Override
     public void write(int c) throws IOException {
       this._w.write(c);
+      if (this._copy != null) {
+        this._copy.append((char) c);
+      }
     }
 
     @Override
     public void write(String str, int off, int len) throws IOException {
       this._w.write(str, off, len);
+      if (this._copy != null) {
+        this._copy.append(str, off, off + len);
+      }
     }
 
     @Override
     public void write(String str) throws IOException {
       this._w.write(str);
+      if (this._copy != null) {
+        this._copy.append(str);
+      }
     }
 
     @Override
     public void write(char[] cbuf, int off, int len) throws IOException {
       this._w.write(cbuf, off, len);
+      if (this._copy != null) {
+        this._copy.append(cbuf, off, len);
+      }
     }
 
     @Override
     protected Object clone() throws CloneNotSupportedException {
-      return new ForwardingWriter(this._w);
+      return new ForwardingWriter(this._w, this._copy);
     }
 
     @Override
@@ -128,14 +161,18 @@ public class HookedJavaFileObject extends ForwardingJavaFileObject<JavaFileObjec
   private class ForwardingOutputStream extends OutputStream {
     private final OutputStream _os;
 
-    ForwardingOutputStream(OutputStream os) {
+    // bytes as written, null if nobody needs them.
+    private final ByteArrayOutputStream _copy;
+
+    ForwardingOutputStream(OutputStream os, ByteArrayOutputStream copy) {
       this._os = os;
+      this._copy = copy;
     }
 
     @Override
     public void close() throws IOException {
       this._os.close();
-      HookedJavaFileObject.this.closed();
+      HookedJavaFileObject.this.closed(null, this._copy);
     }
 
     @Override
@@ -146,21 +183,30 @@ public class HookedJavaFileObject extends ForwardingJavaFileObject<JavaFileObjec
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
       this._os.write(b, off, len);
+      if (this._copy != null) {
+        this._copy.write(b, off, len);
+      }
     }
 
     @Override
     public void write(byte[] b) throws IOException {
       this._os.write(b);
+      if (this._copy != null) {
+        this._copy.write(b, 0, b.length);
+      }
     }
 
     @Override
     public void write(int b) throws IOException {
       this._os.write(b);
+      if (this._copy != null) {
+        this._copy.write(b);
+      }
     }
 
     @Override
     protected Object clone() throws CloneNotSupportedException {
-      return new ForwardingOutputStream(this._os);
+      return new ForwardingOutputStream(this._os, this._copy);
     }
 
     @Override
@@ -211,27 +257,50 @@ public class HookedJavaFileObject extends ForwardingJavaFileObject<JavaFileObjec
 
   @Override
   public OutputStream openOutputStream() throws IOException {
-    return new ForwardingOutputStream(super.openOutputStream());
+    ByteArrayOutputStream copy =
+        this.getKind() == Kind.CLASS ? new ByteArrayOutputStream() : null;
+    return new ForwardingOutputStream(super.openOutputStream(), copy);
   }
 
   @Override
   public Writer openWriter() throws IOException {
-    return new ForwardingWriter(super.openWriter());
+    StringBuilder copy = this.getKind() == Kind.SOURCE ? new StringBuilder() : null;
+    return new ForwardingWriter(super.openWriter(), copy);
   }
 
-  protected void closed() {
+  /**
+   * @param chars written by {@link #openWriter()}, or {@code null}
+   * @param bytes written by {@link #openOutputStream()}, or {@code null}
+   */
+  protected void closed(StringBuilder chars, ByteArrayOutputStream bytes) throws IOException {
     if (!this._closed) {
       this._closed = true;
-      // TODO: support encoding
       switch (this.getKind()) {
         case SOURCE:
-          CompilationUnit unit = new CompilationUnit(null, this._fileName, null /* encoding */);
+          char[] source;
+          if (chars != null) {
+            source = new char[chars.length()];
+            chars.getChars(0, source.length, source, 0);
+          } else {
+            // written as bytes. read back through the file object to decode them.
+            source = this.getCharContent(true).toString().toCharArray();
+          }
+          this._filer._locator.register(this._fileName, source);
+          CompilationUnit unit = new CompilationUnit(source, this._fileName, null);
           this._filer.addNewUnit(unit);
           break;
         case CLASS:
           IBinaryType binaryType = null;
           try {
-            binaryType = ClassFileReader.read(this._fileName);
+            byte[] contents;
+            if (bytes != null) {
+              contents = bytes.toByteArray();
+            } else {
+              try (InputStream in = this.openInputStream()) {
+                contents = in.readAllBytes();
+              }
+            }
+            binaryType = new ClassFileReader(contents, this._fileName.toCharArray());
           } catch (ClassFormatException e) {
             /*
              * When the annotation processor produces garbage, javac
@@ -250,8 +319,6 @@ public class HookedJavaFileObject extends ForwardingJavaFileObject<JavaFileObjec
                     .lookupEnvironment
                     .getType(CharOperation.splitOn('.', this._typeName.toCharArray()));
             if (type != null) this._filer.addNewClassFile(type);
-          } catch (IOException e) {
-            // ignore
           }
           if (binaryType != null) {
             char[] name = binaryType.getName();
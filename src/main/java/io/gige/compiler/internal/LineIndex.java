@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.compiler.internal;
+
+import java.util.Arrays;
+
+import javax.tools.Diagnostic;
+
+/**
+ * line start offsets of a source. columns are computed like javac, tabs expand to multiples of
+ * eight.
+ *
+ * @author taichi
+ */
+public class LineIndex {
+
+  static final int TAB_INC = 8;
+
+  final char[] contents;
+
+  final int[] starts;
+
+  final int size;
+
+  public LineIndex(char[] contents) {
+    this.contents = contents;
+    int[] starts = new int[16];
+    int size = 1;
+    for (int i = 0; i < contents.length; i++) {
+      char c = contents[i];
+      if (c == '\r' && i + 1 < contents.length && contents[i + 1] == '\n') {
+        i++;
+      } else if (c != '\r' && c != '\n') {
+        continue;
+      }
+      if (size == starts.length) {
+        starts = Arrays.copyOf(starts, size * 2);
+      }
+      starts[size++] = i + 1;
+    }
+    this.starts = starts;
+    this.size = size;
+  }
+
+  protected int indexOf(int position) {
+    int i = Arrays.binarySearch(this.starts, 0, this.size, position);
+    return i < 0 ? -i - 2 : i;
+  }
+
+  /** @return 1-based line number, or {@link Diagnostic#NOPOS}. */
+  public long getLineNumber(long position) {
+    if (position < 0 || this.contents.length < position) {
+      return Diagnostic.NOPOS;
+    }
+    return this.indexOf((int) position) + 1;
+  }
+
+  /** @return 1-based column number, or {@link Diagnostic#NOPOS}. */
+  public long getColumnNumber(long position) {
+    if (position < 0 || this.contents.length < position) {
+      return Diagnostic.NOPOS;
+    }
+    int column = 0;
+    for (int i = this.starts[this.indexOf((int) position)]; i < position; i++) {
+      if (this.contents[i] == '\t') {
+        column = (column / TAB_INC * TAB_INC) + TAB_INC;
+      } else {
+        column++;
+      }
+    }
+    return column + 1;
+  }
+}
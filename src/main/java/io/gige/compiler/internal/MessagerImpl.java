@@ -32,11 +32,15 @@ public class MessagerImpl implements Messager {
 
   final BaseProcessingEnvImpl _processingEnv;
   final DiagnosticListener<? super JavaFileObject> diagnosticListener;
+  final SourceLocator locator;
 
   public MessagerImpl(
-      BaseProcessingEnvImpl env, DiagnosticListener<? super JavaFileObject> diagnosticListener) {
+      BaseProcessingEnvImpl env,
+      DiagnosticListener<? super JavaFileObject> diagnosticListener,
+      SourceLocator locator) {
     this._processingEnv = env;
     this.diagnosticListener = diagnosticListener;
+    this.locator = locator;
   }
 
   /*
@@ -92,6 +96,6 @@ public class MessagerImpl implements Messager {
       this._processingEnv.setErrorRaised(true);
     }
     AptProblem problem = BaseMessagerImpl.createProblem(kind, msg, e, a, v);
-    this.diagnosticListener.report(new DiagnosticAdapter(kind, problem));
+    this.diagnosticListener.report(new DiagnosticAdapter(kind, problem, this.locator));
   }
 }
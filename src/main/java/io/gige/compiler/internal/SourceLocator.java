@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.compiler.internal;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.tools.JavaFileObject;
+
+import org.eclipse.jdt.internal.compiler.apt.util.EclipseFileObject;
+
+/**
+ * file objects of a compilation, keyed by the file names which problems originate from.
+ *
+ * @author taichi
+ */
+public class SourceLocator {
+
+  final Map<String, Optional<JavaFileObject>> files = new ConcurrentHashMap<>();
+
+  final Map<String, char[]> contents = new ConcurrentHashMap<>();
+
+  final Map<String, LineIndex> lines = new ConcurrentHashMap<>();
+
+  public void register(String fileName, JavaFileObject file) {
+    this.files.put(fileName, Optional.of(file));
+  }
+
+  /** contents which the compiler reads. the line index is built when it is used first. */
+  public void register(String fileName, char[] contents) {
+    this.contents.put(fileName, contents);
+  }
+
+  /** @return {@code null} if the contents are unknown. */
+  public LineIndex lines(char[] fileName) {
+    if (fileName == null) {
+      return null;
+    }
+    String name = new String(fileName);
+    char[] chars = this.contents.get(name);
+    if (chars == null) {
+      return null;
+    }
+    return this.lines.computeIfAbsent(name, k -> new LineIndex(chars));
+  }
+
+  public JavaFileObject locate(char[] fileName) {
+    if (fileName == null) {
+      return null;
+    }
+    return this.files.computeIfAbsent(new String(fileName), this::lookup).orElse(null);
+  }
+
+  /** neither a compilation unit nor a generated file. such as a source on the source path. */
+  protected Optional<JavaFileObject> lookup(String fileName) {
+    File file = new File(fileName);
+    if (file.exists()) {
+      return Optional.of(
+          new EclipseFileObject(null, file.toURI(), JavaFileObject.Kind.SOURCE, null));
+    }
+    return Optional.empty();
+  }
+}
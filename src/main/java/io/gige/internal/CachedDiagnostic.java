@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.internal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * a detached copy of a diagnostic. the source only knows its uri.
+ *
+ * @author taichi
+ */
+public class CachedDiagnostic implements Diagnostic<JavaFileObject> {
+
+  final Kind kind;
+  final JavaFileObject source;
+  final long position;
+  final long startPosition;
+  final long endPosition;
+  final long lineNumber;
+  final long columnNumber;
+  final String code;
+  final String message;
+
+  public CachedDiagnostic(Diagnostic<? extends JavaFileObject> d, Locale locale) {
+    this(
+        d.getKind(),
+        d.getSource() == null ? null : d.getSource().toUri(),
+        d.getPosition(),
+        d.getStartPosition(),
+        d.getEndPosition(),
+        d.getLineNumber(),
+        d.getColumnNumber(),
+        d.getCode(),
+        d.getMessage(locale));
+  }
+
+  CachedDiagnostic(
+      Kind kind,
+      URI source,
+      long position,
+      long startPosition,
+      long endPosition,
+      long lineNumber,
+      long columnNumber,
+      String code,
+      String message) {
+    this.kind = kind;
+    this.source =
+        source == null ? null : new SimpleJavaFileObject(source, JavaFileObject.Kind.SOURCE) {};
+    this.position = position;
+    this.startPosition = startPosition;
+    this.endPosition = endPosition;
+    this.lineNumber = lineNumber;
+    this.columnNumber = columnNumber;
+    this.code = code;
+    this.message = message;
+  }
+
+  public void write(DataOutput out) throws IOException {
+    out.writeUTF(this.kind.name());
+    writeString(out, this.source == null ? null : this.source.toUri().toString());
+    out.writeLong(this.position);
+    out.writeLong(this.startPosition);
+    out.writeLong(this.endPosition);
+    out.writeLong(this.lineNumber);
+    out.writeLong(this.columnNumber);
+    writeString(out, this.code);
+    writeString(out, this.message);
+  }
+
+  public static CachedDiagnostic read(DataInput in) throws IOException {
+    Kind kind = Kind.valueOf(in.readUTF());
+    String source = readString(in);
+    return new CachedDiagnostic(
+        kind,
+        source == null ? null : URI.create(source),
+        in.readLong(),
+        in.readLong(),
+        in.readLong(),
+        in.readLong(),
+        in.readLong(),
+        readString(in),
+        readString(in));
+  }
+
+  public static void writeString(DataOutput out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  public static String readString(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  @Override
+  public JavaFileObject getSource() {
+    return this.source;
+  }
+
+  @Override
+  public long getPosition() {
+    return this.position;
+  }
+
+  @Override
+  public long getStartPosition() {
+    return this.startPosition;
+  }
+
+  @Override
+  public long getEndPosition() {
+    return this.endPosition;
+  }
+
+  @Override
+  public long getLineNumber() {
+    return this.lineNumber;
+  }
+
+  @Override
+  public long getColumnNumber() {
+    return this.columnNumber;
+  }
+
+  @Override
+  public String getCode() {
+    return this.code;
+  }
+
+  @Override
+  public String getMessage(Locale locale) {
+    return this.message;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder stb = new StringBuilder();
+    if (this.source != null) {
+      stb.append(this.source.getName()).append(':').append(this.lineNumber).append(": ");
+    }
+    return stb.append(this.kind).append(": ").append(this.message).toString();
+  }
+}
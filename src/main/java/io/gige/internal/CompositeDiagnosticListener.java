@@ -19,16 +19,17 @@ import java.util.Arrays;
 import java.util.List;
 
 import javax.tools.Diagnostic;
-import javax.tools.DiagnosticCollector;
 import javax.tools.DiagnosticListener;
 import javax.tools.JavaFileObject;
 
+import io.gige.DiagnosticStore;
+
 /** @author taichi */
 public class CompositeDiagnosticListener implements DiagnosticListener<JavaFileObject> {
 
   final List<DiagnosticListener<JavaFileObject>> listeners;
 
-  final DiagnosticCollector<JavaFileObject> storage = new DiagnosticCollector<>();
+  final DiagnosticStore storage = new DiagnosticStore();
 
   public CompositeDiagnosticListener(DiagnosticListener<JavaFileObject> delegate) {
     this.listeners = Arrays.asList(this.storage, this.orElse(delegate));
@@ -46,4 +47,8 @@ public class CompositeDiagnosticListener implements DiagnosticListener<JavaFileO
   public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
     return this.storage.getDiagnostics();
   }
+
+  public DiagnosticStore getStore() {
+    return this.storage;
+  }
 }
@@ -47,4 +47,20 @@ public class FileUnit implements Unit {
       throw new UncheckedIOException(e);
     }
   }
+
+  @Override
+  public int hashCode() {
+    return this.className.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || this.getClass() != obj.getClass()) {
+      return false;
+    }
+    return this.className.equals(((FileUnit) obj).className);
+  }
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * keeps CLASS_OUTPUT and SOURCE_OUTPUT on the heap. other locations are delegated to the
+ * underlying file manager.
+ *
+ * @author taichi
+ */
+public class InMemoryJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager>
+    implements StandardJavaFileManager {
+
+  static final String SCHEME = "mem";
+
+  static final Set<StandardLocation> outputs =
+      EnumSet.of(StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_OUTPUT);
+
+  final Charset charset;
+
+  final Map<URI, InMemoryJavaFileObject> storage = new ConcurrentHashMap<>();
+
+  public InMemoryJavaFileManager(StandardJavaFileManager fileManager, Charset charset) {
+    super(fileManager);
+    this.charset = charset;
+  }
+
+  protected boolean isInMemory(Location location) {
+    return outputs.contains(location);
+  }
+
+  protected URI toUri(Location location, String path) {
+    try {
+      return new URI(SCHEME, null, "/" + location.getName() + "/" + path, null);
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException(path, e);
+    }
+  }
+
+  protected URI toUri(Location location, String className, Kind kind) {
+    return this.toUri(location, className.replace('.', '/') + kind.extension);
+  }
+
+  protected URI toUri(Location location, String packageName, String relativeName) {
+    if (packageName.isEmpty()) {
+      return this.toUri(location, relativeName);
+    }
+    return this.toUri(location, packageName.replace('.', '/') + "/" + relativeName);
+  }
+
+  protected Kind toKind(String name) {
+    for (Kind k : EnumSet.of(Kind.SOURCE, Kind.CLASS, Kind.HTML)) {
+      if (name.endsWith(k.extension)) {
+        return k;
+      }
+    }
+    return Kind.OTHER;
+  }
+
+  protected InMemoryJavaFileObject find(URI uri) {
+    InMemoryJavaFileObject fo = this.storage.get(uri);
+    return fo != null && fo.exists() ? fo : null;
+  }
+
+  @Override
+  public JavaFileObject getJavaFileForInput(Location location, String className, Kind kind)
+      throws IOException {
+    if (this.isInMemory(location)) {
+      return this.find(this.toUri(location, className, kind));
+    }
+    return super.getJavaFileForInput(location, className, kind);
+  }
+
+  @Override
+  public JavaFileObject getJavaFileForOutput(
+      Location location, String className, Kind kind, FileObject sibling) throws IOException {
+    if (this.isInMemory(location)) {
+      String binaryName = className.replace('/', '.');
+      return this.storage.computeIfAbsent(
+          this.toUri(location, className, kind),
+          uri -> new InMemoryJavaFileObject(uri, kind, binaryName, this.charset));
+    }
+    return super.getJavaFileForOutput(location, className, kind, sibling);
+  }
+
+  @Override
+  public FileObject getFileForInput(Location location, String packageName, String relativeName)
+      throws IOException {
+    if (this.isInMemory(location)) {
+      return this.find(this.toUri(location, packageName, relativeName));
+    }
+    return super.getFileForInput(location, packageName, relativeName);
+  }
+
+  @Override
+  public FileObject getFileForOutput(
+      Location location, String packageName, String relativeName, FileObject sibling)
+      throws IOException {
+    if (this.isInMemory(location)) {
+      Kind kind = this.toKind(relativeName);
+      String binaryName =
+          kind == Kind.OTHER
+              ? null
+              : (packageName.isEmpty() ? "" : packageName + ".")
+                  + relativeName.substring(0, relativeName.length() - kind.extension.length());
+      return this.storage.computeIfAbsent(
+          this.toUri(location, packageName, relativeName),
+          uri -> new InMemoryJavaFileObject(uri, kind, binaryName, this.charset));
+    }
+    return super.getFileForOutput(location, packageName, relativeName, sibling);
+  }
+
+  @Override
+  public Iterable<JavaFileObject> list(
+      Location location, String packageName, Set<Kind> kinds, boolean recurse) throws IOException {
+    if (this.isInMemory(location)) {
+      String prefix = this.toUri(location, packageName.replace('.', '/')).getPath();
+      String dir = prefix.endsWith("/") ? prefix : prefix + "/";
+      return this.storage
+          .values()
+          .stream()
+          .filter(InMemoryJavaFileObject::exists)
+          .filter(fo -> kinds.contains(fo.getKind()))
+          .filter(
+              fo -> {
+                String path = fo.toUri().getPath();
+                return path.startsWith(dir)
+                    && (recurse || path.indexOf('/', dir.length()) < 0);
+              })
+          .collect(Collectors.toList());
+    }
+    return super.list(location, packageName, kinds, recurse);
+  }
+
+  @Override
+  public String inferBinaryName(Location location, JavaFileObject file) {
+    if (file instanceof InMemoryJavaFileObject) {
+      return ((InMemoryJavaFileObject) file).getBinaryName();
+    }
+    return super.inferBinaryName(location, file);
+  }
+
+  @Override
+  public boolean isSameFile(FileObject a, FileObject b) {
+    if (a instanceof InMemoryJavaFileObject || b instanceof InMemoryJavaFileObject) {
+      return a.toUri().equals(b.toUri());
+    }
+    return super.isSameFile(a, b);
+  }
+
+  @Override
+  public boolean hasLocation(Location location) {
+    return this.isInMemory(location) || super.hasLocation(location);
+  }
+
+  @Override
+  public boolean contains(Location location, FileObject fo) throws IOException {
+    if (fo instanceof InMemoryJavaFileObject) {
+      return this.isInMemory(location)
+          && fo.toUri().getPath().startsWith("/" + location.getName() + "/");
+    }
+    return super.contains(location, fo);
+  }
+
+  @Override
+  public Iterable<? extends JavaFileObject> getJavaFileObjectsFromFiles(
+      Iterable<? extends File> files) {
+    return this.fileManager.getJavaFileObjectsFromFiles(files);
+  }
+
+  @Override
+  public Iterable<? extends JavaFileObject> getJavaFileObjects(File... files) {
+    return this.fileManager.getJavaFileObjects(files);
+  }
+
+  @Override
+  public Iterable<? extends JavaFileObject> getJavaFileObjectsFromStrings(Iterable<String> names) {
+    return this.fileManager.getJavaFileObjectsFromStrings(names);
+  }
+
+  @Override
+  public Iterable<? extends JavaFileObject> getJavaFileObjects(String... names) {
+    return this.fileManager.getJavaFileObjects(names);
+  }
+
+  @Override
+  public void setLocation(Location location, Iterable<? extends File> files) throws IOException {
+    this.fileManager.setLocation(location, files);
+  }
+
+  @Override
+  public Iterable<? extends File> getLocation(Location location) {
+    return this.fileManager.getLocation(location);
+  }
+
+  @Override
+  public void setLocationFromPaths(Location location, Collection<? extends Path> paths)
+      throws IOException {
+    this.fileManager.setLocationFromPaths(location, paths);
+  }
+
+  @Override
+  public Iterable<? extends Path> getLocationAsPaths(Location location) {
+    return this.fileManager.getLocationAsPaths(location);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      this.storage.clear();
+    }
+  }
+}
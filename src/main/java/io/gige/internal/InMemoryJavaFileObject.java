@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.Charset;
+
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * heap backed file object. content is visible after the stream or writer is closed.
+ *
+ * @author taichi
+ */
+public class InMemoryJavaFileObject extends SimpleJavaFileObject {
+
+  final String binaryName;
+
+  final Charset charset;
+
+  volatile byte[] content;
+
+  volatile long lastModified = 0L;
+
+  public InMemoryJavaFileObject(URI uri, Kind kind, String binaryName, Charset charset) {
+    super(uri, kind);
+    this.binaryName = binaryName;
+    this.charset = charset;
+  }
+
+  public String getBinaryName() {
+    return this.binaryName;
+  }
+
+  public boolean exists() {
+    return this.content != null;
+  }
+
+  protected byte[] getContent() throws IOException {
+    byte[] bytes = this.content;
+    if (bytes == null) {
+      throw new FileNotFoundException(this.toUri().toString());
+    }
+    return bytes;
+  }
+
+  @Override
+  public InputStream openInputStream() throws IOException {
+    return new ByteArrayInputStream(this.getContent());
+  }
+
+  @Override
+  public OutputStream openOutputStream() throws IOException {
+    return new ByteArrayOutputStream() {
+      @Override
+      public void close() throws IOException {
+        super.close();
+        InMemoryJavaFileObject.this.content = this.toByteArray();
+        InMemoryJavaFileObject.this.lastModified = System.currentTimeMillis();
+      }
+    };
+  }
+
+  @Override
+  public Reader openReader(boolean ignoreEncodingErrors) throws IOException {
+    return new StringReader(this.getCharContent(ignoreEncodingErrors));
+  }
+
+  @Override
+  public String getCharContent(boolean ignoreEncodingErrors) throws IOException {
+    return new String(this.getContent(), this.charset);
+  }
+
+  @Override
+  public Writer openWriter() throws IOException {
+    return new OutputStreamWriter(this.openOutputStream(), this.charset);
+  }
+
+  @Override
+  public long getLastModified() {
+    return this.lastModified;
+  }
+
+  @Override
+  public boolean delete() {
+    boolean existed = this.content != null;
+    this.content = null;
+    return existed;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+
+/**
+ * members of a type keyed by name and arity, indexed in a single pass over the enclosed
+ * elements. parameter types of each executable are rendered on first use.
+ *
+ * @author taichi
+ */
+public class MemberIndex {
+
+  final Map<String, VariableElement> fields = new HashMap<>();
+
+  final Map<Integer, List<ExecutableElement>> constructors = new HashMap<>();
+
+  final Map<String, Map<Integer, List<ExecutableElement>>> methods = new HashMap<>();
+
+  final Map<ExecutableElement, List<String>> signatures = new IdentityHashMap<>();
+
+  public MemberIndex(TypeElement element) {
+    for (Element e : element.getEnclosedElements()) {
+      switch (e.getKind()) {
+        case FIELD:
+        case ENUM_CONSTANT:
+          this.fields.putIfAbsent(e.getSimpleName().toString(), (VariableElement) e);
+          break;
+        case CONSTRUCTOR:
+          add(this.constructors, (ExecutableElement) e);
+          break;
+        case METHOD:
+          add(
+              this.methods.computeIfAbsent(e.getSimpleName().toString(), k -> new HashMap<>()),
+              (ExecutableElement) e);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  static void add(Map<Integer, List<ExecutableElement>> map, ExecutableElement e) {
+    map.computeIfAbsent(e.getParameters().size(), k -> new ArrayList<>()).add(e);
+  }
+
+  public Optional<VariableElement> getField(CharSequence name) {
+    return Optional.ofNullable(this.fields.get(name.toString()));
+  }
+
+  /** @return constructors in declared order. */
+  public List<ExecutableElement> getConstructors(int arity) {
+    return this.constructors.getOrDefault(arity, Collections.emptyList());
+  }
+
+  /** @return methods in declared order. */
+  public List<ExecutableElement> getMethods(String name, int arity) {
+    return this.methods
+        .getOrDefault(name, Collections.emptyMap())
+        .getOrDefault(arity, Collections.emptyList());
+  }
+
+  /** @return parameter types rendered by {@link Object#toString()}, such as {@code int[]}. */
+  public List<String> getSignature(ExecutableElement e) {
+    return this.signatures.computeIfAbsent(e, MemberIndex::toSignature);
+  }
+
+  static List<String> toSignature(ExecutableElement e) {
+    List<String> result = new ArrayList<>(e.getParameters().size());
+    for (VariableElement ve : e.getParameters()) {
+      result.add(ve.asType().toString());
+    }
+    return result;
+  }
+}
@@ -15,15 +15,12 @@
  */
 package io.gige.internal;
 
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.io.UncheckedIOException;
-import java.io.Writer;
+import java.net.URI;
+import java.util.Objects;
 
 import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
-import javax.tools.JavaFileObject.Kind;
-import javax.tools.StandardLocation;
+import javax.tools.SimpleJavaFileObject;
 
 import io.gige.Unit;
 
@@ -40,16 +37,42 @@ public class OnTheFlyUnit implements Unit {
 
   @Override
   public JavaFileObject apply(JavaFileManager t) {
-    try {
-      final JavaFileObject obj =
-          t.getJavaFileForOutput(StandardLocation.SOURCE_OUTPUT, this.className, Kind.SOURCE, null);
-      try (Writer w = obj.openWriter()) {
-        PrintWriter pw = new PrintWriter(w);
-        pw.print(this.source.toString());
-      }
-      return obj;
-    } catch (IOException e) {
-      throw new UncheckedIOException(e);
+    // compilers read the char sequence directly. nothing is written to SOURCE_OUTPUT.
+    return new Source(this.className, this.source);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.className, this.source.toString());
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || this.getClass() != obj.getClass()) {
+      return false;
+    }
+    OnTheFlyUnit other = (OnTheFlyUnit) obj;
+    return this.className.equals(other.className)
+        && this.source.toString().equals(other.source.toString());
+  }
+
+  static class Source extends SimpleJavaFileObject {
+
+    final CharSequence source;
+
+    Source(String className, CharSequence source) {
+      super(
+          URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+          Kind.SOURCE);
+      this.source = source;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return this.source;
     }
   }
 }
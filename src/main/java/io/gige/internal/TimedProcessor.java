@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.internal;
+
+import java.util.Set;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+import io.gige.Timings;
+
+/**
+ * records elapsed time of the delegate in {@link Timings}. every method of {@link Processor} is
+ * delegated, but the compiler sees this wrapper instead of the delegate.
+ *
+ * @author taichi
+ */
+public class TimedProcessor implements Processor {
+
+  final Processor delegate;
+
+  final Timings timings;
+
+  public TimedProcessor(Processor delegate, Timings timings) {
+    this.delegate = delegate;
+    this.timings = timings;
+  }
+
+  @Override
+  public Set<String> getSupportedOptions() {
+    return this.delegate.getSupportedOptions();
+  }
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return this.delegate.getSupportedAnnotationTypes();
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return this.delegate.getSupportedSourceVersion();
+  }
+
+  @Override
+  public void init(ProcessingEnvironment processingEnv) {
+    this.delegate.init(processingEnv);
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    long start = System.nanoTime();
+    try {
+      return this.delegate.process(annotations, roundEnv);
+    } finally {
+      this.timings.add(this.delegate, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public Iterable<? extends Completion> getCompletions(
+      Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+    return this.delegate.getCompletions(element, annotation, member, userText);
+  }
+
+  @Override
+  public String toString() {
+    return this.delegate.toString();
+  }
+}
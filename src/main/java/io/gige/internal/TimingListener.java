@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.internal;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+import io.gige.Timings;
+import io.gige.Timings.Phase;
+
+/**
+ * measures compiler phases. events of a phase may overlap, so only the outermost pair is
+ * measured.
+ *
+ * @author taichi
+ */
+public class TimingListener implements TaskListener {
+
+  final Timings timings;
+
+  final Map<Phase, long[]> running = new EnumMap<>(Phase.class);
+
+  public TimingListener(Timings timings) {
+    this.timings = timings;
+  }
+
+  protected Phase toPhase(TaskEvent.Kind kind) {
+    switch (kind) {
+      case PARSE:
+      case ENTER:
+        return Phase.PARSE;
+      case ANNOTATION_PROCESSING:
+        return Phase.PROCESSING;
+      case ANALYZE:
+        return Phase.ANALYZE;
+      case GENERATE:
+        return Phase.GENERATE;
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public synchronized void started(TaskEvent e) {
+    Phase phase = this.toPhase(e.getKind());
+    if (phase != null) {
+      // depth, started at
+      long[] state = this.running.computeIfAbsent(phase, k -> new long[2]);
+      if (state[0]++ == 0) {
+        state[1] = System.nanoTime();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void finished(TaskEvent e) {
+    Phase phase = this.toPhase(e.getKind());
+    long[] state = phase == null ? null : this.running.get(phase);
+    if (state != null && 0 < state[0] && --state[0] == 0) {
+      this.timings.add(phase, System.nanoTime() - state[1]);
+    }
+  }
+}
@@ -15,18 +15,25 @@
  */
 package io.gige.junit;
 
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.extension.Extension;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ExtensionContext.Namespace;
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
 import org.junit.jupiter.api.extension.TestTemplateInvocationContext;
 import org.junit.jupiter.api.extension.TestTemplateInvocationContextProvider;
 
 import io.gige.CompilerContext;
+import io.gige.CompilerPool;
 import io.gige.Compilers;
 import io.gige.Compilers.Type;
+import io.gige.SnapshotStore;
 
 /** @author taichi */
 public class CompilerExtension implements Extension, TestTemplateInvocationContextProvider {
@@ -41,6 +48,77 @@ public class CompilerExtension implements Extension, TestTemplateInvocationConte
 
   static final Type[] Defaults = {Type.Standard, Type.Eclipse};
 
+  /**
+   * set {@code true} to share warm compilers across tests. a pooled Eclipse compiler keeps its
+   * classpath listings, so tests which change classes on the classpath need fresh compilers.
+   */
+  public static final String POOL_ENABLED = "gige.pool.enabled";
+
+  /** set {@code true} to compile every {@link Compilers} type concurrently. */
+  public static final String PARALLEL_ENABLED = "gige.parallel.enabled";
+
+  /** directory of snapshots, {@code src/test/snapshots} by default. */
+  public static final String SNAPSHOT_DIRECTORY = "gige.snapshot.directory";
+
+  static final Namespace NAMESPACE = Namespace.create(CompilerExtension.class);
+
+  protected Optional<CompilerPool> getPool(ExtensionContext context) {
+    if (context.getConfigurationParameter(POOL_ENABLED).map(Boolean::valueOf).orElse(false)) {
+      var res =
+          context
+              .getRoot()
+              .getStore(NAMESPACE)
+              .getOrComputeIfAbsent(PoolResource.class, k -> new PoolResource(), PoolResource.class);
+      return Optional.of(res.pool);
+    }
+    return Optional.empty();
+  }
+
+  static SnapshotStore getSnapshotStore(ExtensionContext context) {
+    return context
+        .getRoot()
+        .getStore(NAMESPACE)
+        .getOrComputeIfAbsent(
+            SnapshotStore.class,
+            k ->
+                new SnapshotStore(
+                    Paths.get(
+                        context
+                            .getConfigurationParameter(SNAPSHOT_DIRECTORY)
+                            .orElse("src/test/snapshots")),
+                    context
+                        .getConfigurationParameter(SnapshotStore.UPDATE)
+                        .map(Boolean::valueOf)
+                        .orElse(false)),
+            SnapshotStore.class);
+  }
+
+  protected Optional<ParallelCompilerContext.Group> getGroup(
+      ExtensionContext context, List<Compilers> found, List<Type> types) {
+    boolean parallel =
+        found.stream().anyMatch(Compilers::parallel)
+            || context
+                .getConfigurationParameter(PARALLEL_ENABLED)
+                .map(Boolean::valueOf)
+                .orElse(false);
+    if (parallel && 1 < types.size()) {
+      var group = new ParallelCompilerContext.Group(types);
+      // closed when the test template finishes.
+      context.getStore(NAMESPACE).put(ParallelCompilerContext.Group.class, group);
+      return Optional.of(group);
+    }
+    return Optional.empty();
+  }
+
+  static class PoolResource implements CloseableResource {
+    final CompilerPool pool = new CompilerPool();
+
+    @Override
+    public void close() throws Throwable {
+      this.pool.close();
+    }
+  }
+
   @Override
   public Stream<TestTemplateInvocationContext> provideTestTemplateInvocationContexts(
       ExtensionContext context) {
@@ -49,15 +127,28 @@ public class CompilerExtension implements Extension, TestTemplateInvocationConte
         .map(
             mtd -> {
               var found = Arrays.asList(mtd.getAnnotationsByType(Compilers.class));
-              var stream =
+              var types =
                   found.isEmpty()
-                      ? Arrays.asList(CompilerExtension.Defaults).stream()
+                      ? Arrays.asList(CompilerExtension.Defaults)
                       : found
                           .stream()
                           .map(c -> Arrays.asList(c.value()))
                           .flatMap(List::stream)
-                          .distinct();
-              return stream.map(TestTemplateInvocationContextImpl::of);
+                          .distinct()
+                          .collect(Collectors.toList());
+              var pool = this.getPool(context);
+              var group = this.getGroup(context, found, types);
+              return types
+                  .stream()
+                  .map(
+                      t -> {
+                        CompilerContext ctx =
+                            group
+                                .<CompilerContext>map(g -> new ParallelCompilerContext(t, g))
+                                .orElseGet(() -> new CompilerContext(t));
+                        pool.ifPresent(ctx::set);
+                        return TestTemplateInvocationContextImpl.of(t, ctx);
+                      });
             })
         .orElse(Stream.empty());
   }
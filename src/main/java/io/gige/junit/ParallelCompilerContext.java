@@ -0,0 +1,352 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+
+import org.junit.jupiter.api.extension.ExtensionContext.Store.CloseableResource;
+
+import io.gige.AssertionBlock;
+import io.gige.CompilationCache;
+import io.gige.CompilationResult;
+import io.gige.CompilerContext;
+import io.gige.Compilers;
+import io.gige.Unit;
+
+/**
+ * the first compilation of a test template starts the other compilers of the template in the
+ * background. their assertion blocks are handed over when the corresponding invocations call
+ * {@link #compile(AssertionBlock)}.
+ *
+ * @author taichi
+ */
+@SuppressWarnings("try") // close() of CompilerContext throws Exception.
+class ParallelCompilerContext extends CompilerContext {
+
+  /** how long a background compilation waits for its invocation at the last round. */
+  static final long TIMEOUT_SECONDS = 60;
+
+  static final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          r -> {
+            Thread t = new Thread(r, "gige-parallel");
+            t.setDaemon(true);
+            return t;
+          });
+
+  final Group group;
+
+  final List<CompilerContext> forks = new ArrayList<>();
+
+  ParallelCompilerContext(Compilers.Type type, Group group) {
+    super(type);
+    this.group = group;
+  }
+
+  @Override
+  protected CompilationResult compile(AssertionBlock afterThat, CompilationCache cache)
+      throws IOException {
+    if (cache != null) {
+      // cached results are cheaper than background compilations.
+      return super.compile(afterThat, cache);
+    }
+    Fork fork = this.group.claim(this.provider, this.settings());
+    if (fork != null) {
+      this.forks.add(fork.context);
+      CompilationResult result = fork.join(afterThat, this.diagnosticListener, this.out);
+      if (result != null) {
+        return result;
+      }
+    }
+    this.group.forkOthers(this);
+    return super.compile(afterThat, null);
+  }
+
+  /** @return {@code null} if the current settings can not be compiled in background. */
+  List<Object> settings() {
+    boolean explicitOutputs =
+        this.classOutputs.isEmpty() == false || this.sourceOutputs.isEmpty() == false;
+    if (explicitOutputs && this.inMemory == false) {
+      // other compilers would write the same files concurrently.
+      return null;
+    }
+    if (this.processors.isEmpty() == false) {
+      // configuration of the instances is unknown, and they can not run in two compilations.
+      return null;
+    }
+    List<String> opts = new ArrayList<>();
+    this.getOptions().forEach(opts::add);
+    return Arrays.asList(
+        this.getLocale(),
+        this.getCharset(),
+        this.out != null,
+        opts,
+        this.sourcePaths,
+        this.units,
+        this.factories,
+        this.inMemory,
+        this.timeProcessors,
+        this.pool);
+  }
+
+  /** @param out buffer of the compiler output, or {@code null} to use the default. */
+  CompilerContext copy(
+      Compilers.Type type, DiagnosticListener<JavaFileObject> listener, Writer out) {
+    CompilerContext ctx = new CompilerContext(type);
+    ctx.set(this.getLocale()).set(this.getCharset()).setOptions(this.options).set(listener);
+    ctx.set(this.units.toArray(Unit[]::new));
+    if (out != null) {
+      ctx.set(out);
+    }
+    if (this.sourcePaths.isEmpty() == false) {
+      ctx.setSourcePath(this.sourcePaths.toArray(File[]::new));
+    }
+    if (this.factories.isEmpty() == false) {
+      ctx.setProcessors(this.factories);
+    }
+    if (this.inMemory) {
+      ctx.inMemory();
+    }
+    if (this.processingOnly) {
+      ctx.processingOnly();
+    }
+    if (this.timeProcessors) {
+      ctx.timeProcessors();
+    }
+    if (this.pool != null) {
+      ctx.set(this.pool);
+    }
+    return ctx;
+  }
+
+  @Override
+  public void close() throws Exception {
+    try {
+      this.group.cancel(this.provider);
+      for (CompilerContext ctx : this.forks) {
+        ctx.close();
+      }
+      this.forks.clear();
+    } finally {
+      super.close();
+    }
+  }
+
+  /** background compilations of a test template. */
+  static class Group implements CloseableResource {
+
+    final List<Compilers.Type> types;
+
+    final Map<Supplier<JavaCompiler>, Fork> forks = new ConcurrentHashMap<>();
+
+    boolean forked = false;
+
+    Group(List<Compilers.Type> types) {
+      this.types = types;
+    }
+
+    synchronized void forkOthers(ParallelCompilerContext origin) {
+      if (this.forked) {
+        return;
+      }
+      this.forked = true;
+      List<Object> settings = origin.settings();
+      if (settings == null || origin.units.isEmpty()) {
+        return;
+      }
+      for (Compilers.Type t : this.types) {
+        if (t == origin.provider) {
+          continue;
+        }
+        var listener = new DeferredListener();
+        // the writer of the origin is not thread safe. the output is copied when it is claimed.
+        var out = origin.out == null ? null : new StringWriter();
+        this.forks.put(t, new Fork(settings, origin.copy(t, listener, out), listener, out));
+      }
+    }
+
+    Fork claim(Supplier<JavaCompiler> provider, List<Object> settings) {
+      Fork fork = this.forks.remove(provider);
+      if (fork == null) {
+        return null;
+      }
+      if (fork.settings.equals(settings)) {
+        return fork;
+      }
+      fork.cancel();
+      return null;
+    }
+
+    void cancel(Supplier<JavaCompiler> provider) {
+      Fork fork = this.forks.remove(provider);
+      if (fork != null) {
+        fork.cancel();
+      }
+    }
+
+    @Override
+    public void close() {
+      this.forks.values().forEach(Fork::cancel);
+      this.forks.clear();
+    }
+  }
+
+  static class Fork {
+
+    final List<Object> settings;
+
+    final CompilerContext context;
+
+    final DeferredListener listener;
+
+    final StringWriter out;
+
+    final CompletableFuture<AssertionBlock> block = new CompletableFuture<>();
+
+    final CompletableFuture<CompilationResult> result;
+
+    Fork(
+        List<Object> settings,
+        CompilerContext context,
+        DeferredListener listener,
+        StringWriter out) {
+      this.settings = settings;
+      this.context = context;
+      this.listener = listener;
+      this.out = out;
+      this.result =
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  // waits for the assertions at the last round.
+                  return context.compile(ctx -> this.await().apply(ctx));
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              },
+              executor);
+    }
+
+    AssertionBlock await() throws Exception {
+      try {
+        return this.block.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (TimeoutException e) {
+        if (this.block.completeExceptionally(e)) {
+          // nobody claims this. the invocation compiles by itself if it comes later.
+          throw e;
+        }
+        return this.block.get();
+      }
+    }
+
+    /** @return {@code null} if this fork gave up waiting, then compile it in the invocation. */
+    CompilationResult join(
+        AssertionBlock afterThat, DiagnosticListener<JavaFileObject> dl, Writer out)
+        throws IOException {
+      if (this.block.complete(afterThat) == false) {
+        this.cancel();
+        return null;
+      }
+      this.listener.bind(dl);
+      try {
+        CompilationResult result = this.result.get();
+        if (this.out != null && out != null) {
+          out.write(this.out.toString());
+          out.flush();
+        }
+        return result;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof UncheckedIOException) {
+          throw ((UncheckedIOException) cause).getCause();
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+
+    void cancel() {
+      this.block.complete(ctx -> {});
+      this.result.whenComplete(
+          (r, t) -> {
+            try {
+              this.context.close();
+            } catch (Exception ignore) {
+            }
+          });
+    }
+  }
+
+  /** buffers diagnostics until the invocation which receives them is known. */
+  static class DeferredListener implements DiagnosticListener<JavaFileObject> {
+
+    final List<Diagnostic<? extends JavaFileObject>> buffer = new ArrayList<>();
+
+    DiagnosticListener<JavaFileObject> delegate;
+
+    boolean bound = false;
+
+    @Override
+    public synchronized void report(Diagnostic<? extends JavaFileObject> diagnostic) {
+      if (this.bound) {
+        if (this.delegate != null) {
+          this.delegate.report(diagnostic);
+        }
+      } else {
+        this.buffer.add(diagnostic);
+      }
+    }
+
+    synchronized void bind(DiagnosticListener<JavaFileObject> listener) {
+      this.delegate = listener;
+      this.bound = true;
+      if (listener != null) {
+        this.buffer.forEach(listener::report);
+      }
+      this.buffer.clear();
+    }
+  }
+}
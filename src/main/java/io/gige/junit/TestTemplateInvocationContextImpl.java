@@ -27,6 +27,7 @@ import org.junit.jupiter.api.extension.TestTemplateInvocationContext;
 
 import io.gige.CompilerContext;
 import io.gige.Compilers;
+import io.gige.SnapshotStore;
 
 /** @author taichi */
 class TestTemplateInvocationContextImpl implements TestTemplateInvocationContext {
@@ -40,8 +41,8 @@ class TestTemplateInvocationContextImpl implements TestTemplateInvocationContext
     this.ctx = ctx;
   }
 
-  static TestTemplateInvocationContext of(Compilers.Type t) {
-    return new TestTemplateInvocationContextImpl(t.name(), new CompilerContext(t));
+  static TestTemplateInvocationContext of(Compilers.Type t, CompilerContext ctx) {
+    return new TestTemplateInvocationContextImpl(t.name(), ctx);
   }
 
   @Override
@@ -65,6 +66,25 @@ class TestTemplateInvocationContextImpl implements TestTemplateInvocationContext
             return TestTemplateInvocationContextImpl.this.ctx;
           }
         },
+        new ParameterResolver() {
+          @Override
+          public boolean supportsParameter(
+              ParameterContext parameterContext, ExtensionContext extensionContext) {
+            return parameterContext.getParameter().getType().equals(SnapshotStore.Snapshot.class);
+          }
+
+          @Override
+          public Object resolveParameter(
+              ParameterContext parameterContext, ExtensionContext extensionContext) {
+            String key =
+                extensionContext.getRequiredTestClass().getName()
+                    + "/"
+                    + extensionContext.getRequiredTestMethod().getName()
+                    + "/"
+                    + TestTemplateInvocationContextImpl.this.name;
+            return CompilerExtension.getSnapshotStore(extensionContext).of(key);
+          }
+        },
         new AfterTestExecutionCallback() {
           @Override
           public void afterTestExecution(ExtensionContext context) throws Exception {
@@ -0,0 +1,411 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.util;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.QualifiedNameable;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+
+/**
+ * root elements and all elements enclosed by them, indexed by kind, simple name, qualified name
+ * and annotation type. each query narrows the smallest index bucket instead of scanning enclosed
+ * elements again.
+ *
+ * <pre>
+ * ElementIndex index = ctx.getElements();
+ * index.methods().modifiers(Modifier.PUBLIC).annotatedWith(X.class)
+ *     .enclosedIn(index.types().annotatedWith(Y.class)).list();
+ * </pre>
+ *
+ * @author taichi
+ */
+public class ElementIndex {
+
+  final Elements elements;
+
+  /** position of each element in traversal order. eclipse creates elements on each access. */
+  final Map<Element, Integer> order = new HashMap<>();
+
+  final List<Element> all = new ArrayList<>();
+
+  final Map<ElementKind, List<Element>> kinds = new EnumMap<>(ElementKind.class);
+
+  final Map<String, List<Element>> simpleNames = new HashMap<>();
+
+  final Map<String, Element> qualifiedNames = new HashMap<>();
+
+  /** keyed by qualified name of annotation types, built on first use. */
+  Map<String, List<Element>> annotations;
+
+  public ElementIndex(ProcessingEnvironment env, Iterable<? extends Element> roots) {
+    this.elements = env.getElementUtils();
+    for (Element e : roots) {
+      this.add(e);
+    }
+  }
+
+  /** adds the element and all elements enclosed by it, including parameters. */
+  protected void add(Element root) {
+    List<Element> stack = new ArrayList<>();
+    stack.add(root);
+    while (stack.isEmpty() == false) {
+      Element e = stack.remove(stack.size() - 1);
+      if (this.order.putIfAbsent(e, this.all.size()) != null) {
+        continue;
+      }
+      this.all.add(e);
+      this.kinds.computeIfAbsent(e.getKind(), k -> new ArrayList<>()).add(e);
+      this.simpleNames.computeIfAbsent(e.getSimpleName().toString(), k -> new ArrayList<>()).add(e);
+      if (e instanceof QualifiedNameable) {
+        this.qualifiedNames.putIfAbsent(((QualifiedNameable) e).getQualifiedName().toString(), e);
+      }
+      List<Element> children = new ArrayList<>();
+      if (e instanceof ExecutableElement) {
+        children.addAll(((ExecutableElement) e).getParameters());
+      } else if (e.getKind() != ElementKind.PACKAGE) {
+        // members of a package are root elements of their own.
+        children.addAll(e.getEnclosedElements());
+      }
+      for (int i = children.size() - 1; 0 <= i; i--) {
+        stack.add(children.get(i));
+      }
+    }
+  }
+
+  public Query all() {
+    return new Query(this, null, null, null, Collections.emptyList(), null, null);
+  }
+
+  public Query types() {
+    return this.all()
+        .kind(
+            ElementKind.CLASS,
+            ElementKind.ENUM,
+            ElementKind.INTERFACE,
+            ElementKind.ANNOTATION_TYPE);
+  }
+
+  public Query methods() {
+    return this.all().kind(ElementKind.METHOD);
+  }
+
+  public Query constructors() {
+    return this.all().kind(ElementKind.CONSTRUCTOR);
+  }
+
+  public Query fields() {
+    return this.all().kind(ElementKind.FIELD, ElementKind.ENUM_CONSTANT);
+  }
+
+  public Optional<Element> get(CharSequence qualifiedName) {
+    return Optional.ofNullable(this.qualifiedNames.get(qualifiedName.toString()));
+  }
+
+  public int size() {
+    return this.all.size();
+  }
+
+  /** @return elements annotated with the annotation, including inherited one of classes. */
+  protected List<Element> annotated(String annotation) {
+    if (this.annotations == null) {
+      this.annotations = new HashMap<>();
+      for (Element e : this.all) {
+        for (AnnotationMirror am : this.elements.getAllAnnotationMirrors(e)) {
+          TypeElement type = (TypeElement) am.getAnnotationType().asElement();
+          this.annotations
+              .computeIfAbsent(type.getQualifiedName().toString(), k -> new ArrayList<>())
+              .add(e);
+        }
+      }
+    }
+    return this.annotations.getOrDefault(annotation, Collections.emptyList());
+  }
+
+  /** an immutable query. the smallest candidate bucket is scanned when it is evaluated. */
+  public static class Query {
+
+    final ElementIndex index;
+
+    final Set<ElementKind> kinds;
+
+    final String simpleName;
+
+    final String qualifiedName;
+
+    final List<String> annotations;
+
+    final Set<Modifier> modifiers;
+
+    final Query enclosing;
+
+    List<Element> result;
+
+    Query(
+        ElementIndex index,
+        Set<ElementKind> kinds,
+        String simpleName,
+        String qualifiedName,
+        List<String> annotations,
+        Set<Modifier> modifiers,
+        Query enclosing) {
+      this.index = index;
+      this.kinds = kinds;
+      this.simpleName = simpleName;
+      this.qualifiedName = qualifiedName;
+      this.annotations = annotations;
+      this.modifiers = modifiers;
+      this.enclosing = enclosing;
+    }
+
+    public Query kind(ElementKind... kinds) {
+      Set<ElementKind> set = EnumSet.noneOf(ElementKind.class);
+      Collections.addAll(set, kinds);
+      if (this.kinds != null) {
+        set.retainAll(this.kinds);
+      }
+      return new Query(
+          this.index,
+          set,
+          this.simpleName,
+          this.qualifiedName,
+          this.annotations,
+          this.modifiers,
+          this.enclosing);
+    }
+
+    public Query named(CharSequence simpleName) {
+      Objects.requireNonNull(simpleName);
+      return new Query(
+          this.index,
+          this.conflicts(this.simpleName, simpleName),
+          simpleName.toString(),
+          this.qualifiedName,
+          this.annotations,
+          this.modifiers,
+          this.enclosing);
+    }
+
+    public Query qualified(CharSequence qualifiedName) {
+      Objects.requireNonNull(qualifiedName);
+      return new Query(
+          this.index,
+          this.conflicts(this.qualifiedName, qualifiedName),
+          this.simpleName,
+          qualifiedName.toString(),
+          this.annotations,
+          this.modifiers,
+          this.enclosing);
+    }
+
+    /** @return kinds which match nothing if the condition is already set to another value. */
+    protected Set<ElementKind> conflicts(String current, CharSequence value) {
+      if (current != null && current.contentEquals(value) == false) {
+        return EnumSet.noneOf(ElementKind.class);
+      }
+      return this.kinds;
+    }
+
+    public Query annotatedWith(Class<? extends Annotation> annotation) {
+      return this.annotatedWith(annotation.getCanonicalName());
+    }
+
+    /** all of annotations are required. */
+    public Query annotatedWith(String annotation) {
+      Objects.requireNonNull(annotation);
+      List<String> list = new ArrayList<>(this.annotations);
+      list.add(annotation);
+      return new Query(
+          this.index,
+          this.kinds,
+          this.simpleName,
+          this.qualifiedName,
+          Collections.unmodifiableList(list),
+          this.modifiers,
+          this.enclosing);
+    }
+
+    /** all of modifiers are required. */
+    public Query modifiers(Modifier... modifiers) {
+      Set<Modifier> set = EnumSet.noneOf(Modifier.class);
+      Collections.addAll(set, modifiers);
+      if (this.modifiers != null) {
+        set.addAll(this.modifiers);
+      }
+      return new Query(
+          this.index,
+          this.kinds,
+          this.simpleName,
+          this.qualifiedName,
+          this.annotations,
+          set,
+          this.enclosing);
+    }
+
+    /** elements directly enclosed by the results of the query, parameters by executables. */
+    public Query enclosedIn(Query enclosing) {
+      Objects.requireNonNull(enclosing);
+      if (enclosing.index != this.index) {
+        throw new IllegalArgumentException("queries of different indexes");
+      }
+      if (this.enclosing != null) {
+        throw new IllegalStateException("enclosing query is already set");
+      }
+      return new Query(
+          this.index,
+          this.kinds,
+          this.simpleName,
+          this.qualifiedName,
+          this.annotations,
+          this.modifiers,
+          enclosing);
+    }
+
+    public int count() {
+      return this.list().size();
+    }
+
+    public boolean isEmpty() {
+      return this.list().isEmpty();
+    }
+
+    public Optional<Element> first() {
+      List<Element> list = this.list();
+      return list.isEmpty() ? Optional.empty() : Optional.of(list.get(0));
+    }
+
+    public Stream<Element> stream() {
+      return this.list().stream();
+    }
+
+    public <E extends Element> Stream<E> stream(Class<E> type) {
+      return this.stream().map(type::cast);
+    }
+
+    /** @return matched elements in traversal order. */
+    public List<Element> list() {
+      if (this.result == null) {
+        this.result = this.evaluate();
+      }
+      return this.result;
+    }
+
+    protected List<Element> evaluate() {
+      if (this.kinds != null && this.kinds.isEmpty()) {
+        return Collections.emptyList();
+      }
+      List<Collection<Element>> candidates = new ArrayList<>();
+      candidates.add(this.index.all);
+      if (this.kinds != null) {
+        List<Element> list = new ArrayList<>();
+        for (ElementKind k : this.kinds) {
+          list.addAll(this.index.kinds.getOrDefault(k, Collections.emptyList()));
+        }
+        candidates.add(list);
+      }
+      if (this.simpleName != null) {
+        candidates.add(
+            this.index.simpleNames.getOrDefault(this.simpleName, Collections.emptyList()));
+      }
+      if (this.qualifiedName != null) {
+        Element e = this.index.qualifiedNames.get(this.qualifiedName);
+        candidates.add(e == null ? Collections.emptyList() : Collections.singletonList(e));
+      }
+      List<Set<Element>> annotated = new ArrayList<>();
+      for (String a : this.annotations) {
+        List<Element> list = this.index.annotated(a);
+        candidates.add(list);
+        Set<Element> set = new HashSet<>();
+        set.addAll(list);
+        annotated.add(set);
+      }
+      Set<Element> enclosings = null;
+      if (this.enclosing != null) {
+        List<Element> parents = this.enclosing.list();
+        enclosings = new HashSet<>();
+        enclosings.addAll(parents);
+        List<Element> children = new ArrayList<>();
+        for (Element p : parents) {
+          children.addAll(
+              p instanceof ExecutableElement
+                  ? ((ExecutableElement) p).getParameters()
+                  : p.getEnclosedElements());
+        }
+        candidates.add(children);
+      }
+      Collection<Element> smallest =
+          Collections.min(candidates, Comparator.comparingInt(Collection::size));
+
+      Predicate<Element> filter = e -> true;
+      if (this.kinds != null) {
+        filter = filter.and(e -> this.kinds.contains(e.getKind()));
+      }
+      if (this.simpleName != null) {
+        filter = filter.and(e -> e.getSimpleName().contentEquals(this.simpleName));
+      }
+      if (this.qualifiedName != null) {
+        filter =
+            filter.and(
+                e ->
+                    e instanceof QualifiedNameable
+                        && ((QualifiedNameable) e)
+                            .getQualifiedName()
+                            .contentEquals(this.qualifiedName));
+      }
+      for (Set<Element> s : annotated) {
+        filter = filter.and(s::contains);
+      }
+      if (this.modifiers != null) {
+        filter = filter.and(e -> e.getModifiers().containsAll(this.modifiers));
+      }
+      if (enclosings != null) {
+        Set<Element> parents = enclosings;
+        filter = filter.and(e -> parents.contains(e.getEnclosingElement()));
+      }
+      Map<Element, Integer> order = this.index.order;
+      List<Element> matched = new ArrayList<>();
+      for (Element e : smallest) {
+        if (order.containsKey(e) && filter.test(e)) {
+          matched.add(e);
+        }
+      }
+      matched.sort(Comparator.comparingInt(order::get));
+      return Collections.unmodifiableList(matched);
+    }
+  }
+}
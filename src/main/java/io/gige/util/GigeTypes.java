@@ -47,6 +47,11 @@ public class GigeTypes {
     primitives = Collections.unmodifiableMap(map);
   }
 
+  /** drops memos which the current thread keeps for the environment it used last. */
+  public static void forget() {
+    Memo.clear();
+  }
+
   public static TypeElement to(ProcessingEnvironment env, TypeMirror typeMirror) {
     Objects.requireNonNull(env);
     Objects.requireNonNull(typeMirror);
@@ -68,19 +73,68 @@ public class GigeTypes {
     return getTypeMirror(env, clazz.getCanonicalName());
   }
 
+  /**
+   * resolved names are memoized per environment. unknown names are not, because they may be
+   * generated in later rounds.
+   */
   public static Optional<TypeMirror> getTypeMirror(ProcessingEnvironment env, String className) {
-    TypeElement te = env.getElementUtils().getTypeElement(className);
+    Objects.requireNonNull(env);
+    Objects.requireNonNull(className);
+    Memo memo = Memo.of(env);
+    TypeMirror tm = memo.typeMirrors.get(className);
+    if (tm == null) {
+      tm = resolve(env, className);
+      if (tm != null) {
+        memo.typeMirrors.put(className, tm);
+      }
+    }
+    return Optional.ofNullable(tm);
+  }
+
+  static TypeMirror resolve(ProcessingEnvironment env, String className) {
+    int dims = 0;
+    int end = className.length();
+    while (className.startsWith("[]", end - 2)) {
+      dims++;
+      end -= 2;
+    }
+    String component = className.substring(0, end);
+    TypeMirror tm;
+    TypeElement te = getTypeElement(env, component);
     if (te != null) {
-      return Optional.of(te.asType());
+      tm = te.asType();
+    } else if (primitives.containsKey(component)) {
+      tm = env.getTypeUtils().getPrimitiveType(primitives.get(component));
+    } else {
+      return null;
     }
-    if (className.endsWith("[]")) {
-      final String newName = className.substring(0, className.length() - 2);
-      return toArrayType(env, getTypeMirror(env, newName));
+    for (int i = 0; i < dims; i++) {
+      tm = env.getTypeUtils().getArrayType(tm);
     }
-    if (primitives.containsKey(className)) {
-      return Optional.of(env.getTypeUtils().getPrimitiveType(primitives.get(className)));
+    return tm;
+  }
+
+  /**
+   * resolved names are memoized per environment like {@link #getTypeMirror(ProcessingEnvironment,
+   * String)}.
+   *
+   * @return {@code null} if the type is not found.
+   */
+  public static TypeElement getTypeElement(ProcessingEnvironment env, String className) {
+    Memo memo = Memo.of(env);
+    TypeElement te = memo.typeElements.get(className);
+    if (te == null) {
+      try {
+        te = env.getElementUtils().getTypeElement(className);
+      } catch (NullPointerException e) {
+        // some implementations throw for names which they can not resolve.
+        return null;
+      }
+      if (te != null) {
+        memo.typeElements.put(className, te);
+      }
     }
-    return Optional.empty();
+    return te;
   }
 
   public static Optional<TypeMirror> toArrayType(
@@ -0,0 +1,454 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * minimal line diff by the linear space variant of Myers' O(ND) algorithm.
+ *
+ * <p>the common leading lines are compared while reading and only the last context lines of them
+ * are kept, so equal inputs are compared in constant memory. after the first difference, the rest
+ * of both inputs are held in memory. the edit script is refined from the top, and it stops once a
+ * hunk after maxHunks hunks is found, but the first search of the middle snake still spans the
+ * rest of both inputs.
+ *
+ * <pre>
+ * LineDiff.Result diff = new LineDiff().diff(expected, actual);
+ * if (diff.isEmpty() == false) {
+ *   System.out.println(diff);
+ * }
+ * </pre>
+ *
+ * @author taichi
+ */
+public class LineDiff {
+
+  public static final int DEFAULT_CONTEXT = 3;
+
+  public static final int DEFAULT_MAX_HUNKS = 10;
+
+  final int context;
+
+  final int maxHunks;
+
+  public LineDiff() {
+    this(DEFAULT_CONTEXT, DEFAULT_MAX_HUNKS);
+  }
+
+  public LineDiff(int context, int maxHunks) {
+    if (context < 0) {
+      throw new IllegalArgumentException("context must not be negative");
+    }
+    if (maxHunks < 1) {
+      throw new IllegalArgumentException("maxHunks must be positive");
+    }
+    this.context = context;
+    this.maxHunks = maxHunks;
+  }
+
+  public Result diff(String expected, String actual) {
+    try (BufferedReader left = new BufferedReader(new StringReader(expected));
+        BufferedReader right = new BufferedReader(new StringReader(actual))) {
+      return this.diff(left, right);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public Result diff(BufferedReader expected, BufferedReader actual) throws IOException {
+    Deque<String> leading = new ArrayDeque<>(this.context + 1);
+    int skipped = 0;
+    String l = expected.readLine();
+    String r = actual.readLine();
+    while (l != null && r != null && l.equals(r)) {
+      if (this.context > 0) {
+        if (leading.size() == this.context) {
+          leading.removeFirst();
+        }
+        leading.addLast(l);
+      }
+      skipped++;
+      l = expected.readLine();
+      r = actual.readLine();
+    }
+    if (l == null && r == null) {
+      return new Result(Collections.emptyList(), false);
+    }
+    List<String> lefts = new ArrayList<>(leading);
+    List<String> rights = new ArrayList<>(leading);
+    read(l, expected, lefts);
+    read(r, actual, rights);
+    Script script = new Script(lefts, rights);
+    script.compare(this.context, this.maxHunks);
+    return this.toResult(script, skipped - leading.size());
+  }
+
+  static void read(String first, BufferedReader reader, List<String> lines) throws IOException {
+    for (String s = first; s != null; s = reader.readLine()) {
+      lines.add(s);
+    }
+  }
+
+  protected Result toResult(Script script, int offset) {
+    List<int[]> changes = script.changes();
+    List<Hunk> hunks = new ArrayList<>();
+    int n = script.lefts.size();
+    int i = 0;
+    while (i < changes.size() && hunks.size() < this.maxHunks) {
+      int first = i;
+      // close changes share their context lines.
+      while (i + 1 < changes.size()
+          && changes.get(i + 1)[0] - changes.get(i)[1] <= this.context * 2) {
+        i++;
+      }
+      hunks.add(this.toHunk(script, changes.subList(first, i + 1), n, offset));
+      i++;
+    }
+    return new Result(Collections.unmodifiableList(hunks), i < changes.size());
+  }
+
+  protected Hunk toHunk(Script script, List<int[]> changes, int n, int offset) {
+    int[] head = changes.get(0);
+    int[] tail = changes.get(changes.size() - 1);
+    int before = Math.min(this.context, head[0]);
+    int after = Math.min(this.context, n - tail[1]);
+    List<String> lines = new ArrayList<>();
+    int a = head[0] - before;
+    for (int[] c : changes) {
+      for (; a < c[0]; a++) {
+        lines.add(" " + script.lefts.get(a));
+      }
+      for (; a < c[1]; a++) {
+        lines.add("-" + script.lefts.get(a));
+      }
+      for (int b = c[2]; b < c[3]; b++) {
+        lines.add("+" + script.rights.get(b));
+      }
+    }
+    for (int end = tail[1] + after; a < end; a++) {
+      lines.add(" " + script.lefts.get(a));
+    }
+    return new Hunk(
+        offset + head[0] - before,
+        tail[1] - head[0] + before + after,
+        offset + head[2] - before,
+        tail[3] - head[2] + before + after,
+        Collections.unmodifiableList(lines));
+  }
+
+  /** marks deleted and inserted lines. lines are compared by interned ids. */
+  static class Script {
+    final List<String> lefts;
+    final List<String> rights;
+    final int[] as;
+    final int[] bs;
+    final boolean[] deleted;
+    final boolean[] inserted;
+
+    Script(List<String> lefts, List<String> rights) {
+      this.lefts = lefts;
+      this.rights = rights;
+      Map<String, Integer> ids = new HashMap<>();
+      this.as = lefts.stream().mapToInt(s -> ids.computeIfAbsent(s, k -> ids.size())).toArray();
+      this.bs = rights.stream().mapToInt(s -> ids.computeIfAbsent(s, k -> ids.size())).toArray();
+      this.deleted = new boolean[this.as.length];
+      this.inserted = new boolean[this.bs.length];
+    }
+
+    /** cursor of {@link #exceeds(int, int, int, int)}. */
+    int i, j, hunks, end;
+
+    /** lines after the cursor are not resolved. */
+    boolean stopped;
+
+    /**
+     * ranges are resolved from the beginning, so lines before a popped range are final. the rest
+     * is left unresolved when a hunk after maxHunks hunks is found.
+     */
+    void compare(int context, int maxHunks) {
+      int size = this.as.length + this.bs.length;
+      int[] vf = new int[size + 3];
+      int[] vb = new int[size + 3];
+      Deque<int[]> stack = new ArrayDeque<>();
+      stack.push(new int[] {0, this.as.length, 0, this.bs.length});
+      while (stack.isEmpty() == false) {
+        int[] range = stack.pop();
+        int aLo = range[0], aHi = range[1], bLo = range[2], bHi = range[3];
+        if (this.exceeds(aLo, bLo, context, maxHunks)) {
+          this.stopped = true;
+          return;
+        }
+        while (aLo < aHi && bLo < bHi && this.as[aLo] == this.bs[bLo]) {
+          aLo++;
+          bLo++;
+        }
+        while (aLo < aHi && bLo < bHi && this.as[aHi - 1] == this.bs[bHi - 1]) {
+          aHi--;
+          bHi--;
+        }
+        if (aLo == aHi || bLo == bHi) {
+          this.mark(aLo, aHi, bLo, bHi);
+          continue;
+        }
+        int[] mid = this.split(aLo, aHi, bLo, bHi, vf, vb);
+        if ((mid[0] == aLo && mid[1] == bLo) || (mid[0] == aHi && mid[1] == bHi)) {
+          this.mark(aLo, aHi, bLo, bHi);
+          continue;
+        }
+        stack.push(new int[] {mid[0], aHi, mid[1], bHi});
+        stack.push(new int[] {aLo, mid[0], bLo, mid[1]});
+      }
+    }
+
+    /** counts hunks in the final lines, same as {@link LineDiff#toResult(Script, int)}. */
+    boolean exceeds(int aTo, int bTo, int context, int maxHunks) {
+      while (this.i < aTo || this.j < bTo) {
+        if (this.i < aTo
+            && this.j < bTo
+            && this.deleted[this.i] == false
+            && this.inserted[this.j] == false) {
+          this.i++;
+          this.j++;
+          continue;
+        }
+        if (this.hunks == 0 || context * 2 < this.i - this.end) {
+          if (maxHunks < ++this.hunks) {
+            return true;
+          }
+        }
+        int a = this.i, b = this.j;
+        while (this.i < aTo && this.deleted[this.i]) {
+          this.i++;
+        }
+        while (this.j < bTo && this.inserted[this.j]) {
+          this.j++;
+        }
+        if (a == this.i && b == this.j) {
+          // not a point on the path.
+          throw new IllegalStateException();
+        }
+        this.end = this.i;
+      }
+      return false;
+    }
+
+    void mark(int aLo, int aHi, int bLo, int bHi) {
+      for (int i = aLo; i < aHi; i++) {
+        this.deleted[i] = true;
+      }
+      for (int i = bLo; i < bHi; i++) {
+        this.inserted[i] = true;
+      }
+    }
+
+    /**
+     * finds the middle snake of the optimal path, searching forward and backward at once.
+     *
+     * @return a point on the optimal path.
+     */
+    int[] split(int aLo, int aHi, int bLo, int bHi, int[] vf, int[] vb) {
+      int n = aHi - aLo;
+      int m = bHi - bLo;
+      int delta = n - m;
+      boolean odd = (delta & 1) != 0;
+      int max = (n + m + 1) / 2;
+      int off = max + 1;
+      vf[off + 1] = 0;
+      vb[off + 1] = 0;
+      for (int d = 0; d <= max; d++) {
+        for (int k = -d; k <= d; k += 2) {
+          int x =
+              k == -d || (k != d && vf[off + k - 1] < vf[off + k + 1])
+                  ? vf[off + k + 1]
+                  : vf[off + k - 1] + 1;
+          int y = x - k;
+          int sx = x, sy = y;
+          while (x < n && y < m && this.as[aLo + x] == this.bs[bLo + y]) {
+            x++;
+            y++;
+          }
+          vf[off + k] = x;
+          int c = delta - k;
+          if (odd && -d < c && c < d && n <= x + vb[off + c]) {
+            return new int[] {aLo + sx, bLo + sy};
+          }
+        }
+        for (int k = -d; k <= d; k += 2) {
+          int x =
+              k == -d || (k != d && vb[off + k - 1] < vb[off + k + 1])
+                  ? vb[off + k + 1]
+                  : vb[off + k - 1] + 1;
+          int y = x - k;
+          int sx = x, sy = y;
+          while (x < n && y < m && this.as[aHi - 1 - x] == this.bs[bHi - 1 - y]) {
+            x++;
+            y++;
+          }
+          vb[off + k] = x;
+          int c = delta - k;
+          if (odd == false && -d <= c && c <= d && n <= x + vf[off + c]) {
+            return new int[] {aHi - sx, bHi - sy};
+          }
+        }
+      }
+      throw new IllegalStateException();
+    }
+
+    /** @return ranges of changed lines as {aFrom, aTo, bFrom, bTo}. */
+    List<int[]> changes() {
+      List<int[]> result = new ArrayList<>();
+      int i = 0, j = 0;
+      int n = this.stopped ? this.i : this.as.length;
+      int m = this.stopped ? this.j : this.bs.length;
+      while (i < n || j < m) {
+        if (i < n && j < m && this.deleted[i] == false && this.inserted[j] == false) {
+          i++;
+          j++;
+          continue;
+        }
+        int a = i, b = j;
+        while (i < n && this.deleted[i]) {
+          i++;
+        }
+        while (j < m && this.inserted[j]) {
+          j++;
+        }
+        result.add(new int[] {a, i, b, j});
+      }
+      if (this.stopped) {
+        // the rest is one change, which is not reported.
+        result.add(new int[] {n, this.as.length, m, this.bs.length});
+      }
+      return result;
+    }
+  }
+
+  public static class Result {
+
+    final List<Hunk> hunks;
+
+    final boolean truncated;
+
+    Result(List<Hunk> hunks, boolean truncated) {
+      this.hunks = hunks;
+      this.truncated = truncated;
+    }
+
+    public boolean isEmpty() {
+      return this.hunks.isEmpty();
+    }
+
+    public List<Hunk> getHunks() {
+      return this.hunks;
+    }
+
+    /** @return {@code true} if there are more differences than reported hunks. */
+    public boolean isTruncated() {
+      return this.truncated;
+    }
+
+    /** @return the unified diff format. */
+    @Override
+    public String toString() {
+      StringBuilder stb = new StringBuilder();
+      stb.append("--- expected\n+++ actual\n");
+      this.hunks.forEach(h -> stb.append(h));
+      if (this.truncated) {
+        stb.append("...\n");
+      }
+      return stb.toString();
+    }
+  }
+
+  public static class Hunk {
+
+    /** 0 origin. */
+    final int expectedStart;
+
+    final int expectedLength;
+
+    /** 0 origin. */
+    final int actualStart;
+
+    final int actualLength;
+
+    final List<String> lines;
+
+    Hunk(
+        int expectedStart,
+        int expectedLength,
+        int actualStart,
+        int actualLength,
+        List<String> lines) {
+      this.expectedStart = expectedStart;
+      this.expectedLength = expectedLength;
+      this.actualStart = actualStart;
+      this.actualLength = actualLength;
+      this.lines = lines;
+    }
+
+    /** @return 1 origin line number. */
+    public int getExpectedLine() {
+      return this.expectedStart + 1;
+    }
+
+    public int getExpectedLength() {
+      return this.expectedLength;
+    }
+
+    /** @return 1 origin line number. */
+    public int getActualLine() {
+      return this.actualStart + 1;
+    }
+
+    public int getActualLength() {
+      return this.actualLength;
+    }
+
+    /** @return lines prefixed with {@code ' '}, {@code '-'} or {@code '+'}. */
+    public List<String> getLines() {
+      return this.lines;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder stb = new StringBuilder();
+      stb.append("@@ -")
+          .append(range(this.expectedStart, this.expectedLength))
+          .append(" +")
+          .append(range(this.actualStart, this.actualLength))
+          .append(" @@\n");
+      this.lines.forEach(s -> stb.append(s).append('\n'));
+      return stb.toString();
+    }
+
+    static String range(int start, int length) {
+      // an empty range points the line before it.
+      return (length == 0 ? start : start + 1) + "," + length;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * memos of the processing environment which the current thread used last.
+ *
+ * <p>memoized elements and types refer to their environment, so a weak map keyed by environments
+ * never releases them. instead, each thread keeps memos of one environment, and drops them when
+ * it sees another one. processors and assertion blocks of a compilation run on one thread.
+ * {@link io.gige.CompilerContext} drops them when a compilation finishes, other callers use {@link
+ * GigeTypes#forget()}.
+ *
+ * @author taichi
+ */
+final class Memo {
+
+  static final ThreadLocal<Memo> current = new ThreadLocal<>();
+
+  static Memo of(ProcessingEnvironment env) {
+    Memo memo = current.get();
+    if (memo == null || memo.env != env) {
+      memo = new Memo(env);
+      current.set(memo);
+    }
+    return memo;
+  }
+
+  static void clear() {
+    current.remove();
+  }
+
+  final ProcessingEnvironment env;
+
+  // GigeTypes
+  final Map<String, TypeElement> typeElements = new HashMap<>();
+  final Map<String, TypeMirror> typeMirrors = new HashMap<>();
+
+  // TypeHierarchy
+  final Map<TypeElement, Optional<TypeElement>> superclasses = new HashMap<>();
+  final Map<TypeElement, List<TypeElement>> supertypes = new HashMap<>();
+  final Map<TypeElement, List<TypeElement>> breadthFirst = new HashMap<>();
+  final Map<TypeElement, List<TypeElement>> linearized = new HashMap<>();
+  final Map<TypeElement, Set<TypeElement>> closures = new HashMap<>();
+
+  Memo(ProcessingEnvironment env) {
+    this.env = env;
+  }
+}
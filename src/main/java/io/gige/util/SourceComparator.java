@@ -0,0 +1,279 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.util;
+
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * compares sources line by line after normalization.
+ *
+ * <p>both sources are scanned once in lockstep. each normalized line is hashed while it is read,
+ * and characters are compared only when hashes and lengths are same, so no intermediate strings
+ * are made unless the sources differ.
+ *
+ * <pre>
+ * SourceComparator.of(Normalization.WHITESPACE, Normalization.IMPORTS).matches(expected, actual);
+ * </pre>
+ *
+ * @author taichi
+ */
+public class SourceComparator {
+
+  public enum Normalization {
+    /** treats CR LF and CR as LF. */
+    LINE_ENDINGS,
+    /** collapses whitespace runs in a line to a space, and strips them at both ends. */
+    WHITESPACE,
+    /** ignores lines which contain whitespace only. */
+    BLANK_LINES,
+    /** sorts consecutive import declarations. blank lines between them are ignored. */
+    IMPORTS
+  }
+
+  /** compares lines as they are. lines are separated by LF only. */
+  public static final SourceComparator EXACT = new SourceComparator();
+
+  public static final SourceComparator LENIENT =
+      new SourceComparator(Normalization.values());
+
+  final Set<Normalization> normalizations;
+
+  public SourceComparator(Normalization... normalizations) {
+    this.normalizations = EnumSet.noneOf(Normalization.class);
+    Collections.addAll(this.normalizations, normalizations);
+  }
+
+  public static SourceComparator of(Normalization... normalizations) {
+    return new SourceComparator(normalizations);
+  }
+
+  public boolean matches(CharSequence expected, CharSequence actual) {
+    Lines lefts = new Lines(CharBuffer.wrap(expected));
+    Lines rights = new Lines(CharBuffer.wrap(actual));
+    while (true) {
+      Line l = lefts.next();
+      Line r = rights.next();
+      if (l == null || r == null) {
+        return l == r;
+      }
+      if (l.hash != r.hash || l.length != r.length || l.compareTo(r) != 0) {
+        return false;
+      }
+    }
+  }
+
+  /** @return normalized lines, each of them ends with LF. */
+  public String normalize(CharSequence source) {
+    StringBuilder stb = new StringBuilder(source.length());
+    Lines lines = new Lines(CharBuffer.wrap(source));
+    for (Line l = lines.next(); l != null; l = lines.next()) {
+      Cursor c = l.cursor();
+      for (int ch = c.next(); ch != -1; ch = c.next()) {
+        stb.append((char) ch);
+      }
+      stb.append('\n');
+    }
+    return stb.toString();
+  }
+
+  /** @return the diff of normalized sources. */
+  public LineDiff.Result diff(CharSequence expected, CharSequence actual) {
+    return new LineDiff().diff(this.normalize(expected), this.normalize(actual));
+  }
+
+  static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\f' || c == '\r';
+  }
+
+  /** iterates lines in normalized form. */
+  class Lines {
+    final CharBuffer buf;
+    final Deque<Line> queue = new ArrayDeque<>();
+    int pos;
+
+    Lines(CharBuffer buf) {
+      this.buf = buf;
+    }
+
+    Line next() {
+      if (this.queue.isEmpty() == false) {
+        return this.queue.poll();
+      }
+      Line line = this.read();
+      if (line != null && line.isImport() && normalizations.contains(Normalization.IMPORTS)) {
+        List<Line> imports = new ArrayList<>();
+        List<Line> blanks = new ArrayList<>();
+        for (; line != null; line = this.read()) {
+          if (line.isImport()) {
+            imports.add(line);
+            blanks.clear();
+          } else if (line.isBlank()) {
+            blanks.add(line);
+          } else {
+            break;
+          }
+        }
+        Collections.sort(imports);
+        this.queue.addAll(imports);
+        this.queue.addAll(blanks);
+        if (line != null) {
+          this.queue.add(line);
+        }
+        return this.queue.poll();
+      }
+      return line;
+    }
+
+    /** @return the next line, or {@code null} at the end. */
+    Line read() {
+      boolean endings = normalizations.contains(Normalization.LINE_ENDINGS);
+      boolean blanks = normalizations.contains(Normalization.BLANK_LINES);
+      int limit = this.buf.limit();
+      while (this.pos < limit) {
+        int start = this.pos;
+        int end = start;
+        while (end < limit) {
+          char c = this.buf.get(end);
+          if (c == '\n' || (endings && c == '\r')) {
+            break;
+          }
+          end++;
+        }
+        this.pos = end + 1;
+        if (endings && end + 1 < limit && this.buf.get(end) == '\r') {
+          if (this.buf.get(end + 1) == '\n') {
+            this.pos++;
+          }
+        }
+        Line line = new Line(this.buf, start, end);
+        if (blanks == false || line.isBlank() == false) {
+          return line;
+        }
+      }
+      return null;
+    }
+  }
+
+  class Line implements Comparable<Line> {
+    final CharBuffer buf;
+    final int start;
+    final int end;
+    final int hash;
+    final int length;
+
+    Line(CharBuffer buf, int start, int end) {
+      if (normalizations.contains(Normalization.WHITESPACE)) {
+        while (start < end && isWhitespace(buf.get(start))) {
+          start++;
+        }
+        while (start < end && isWhitespace(buf.get(end - 1))) {
+          end--;
+        }
+      }
+      this.buf = buf;
+      this.start = start;
+      this.end = end;
+      int h = 0;
+      int len = 0;
+      Cursor c = this.cursor();
+      for (int ch = c.next(); ch != -1; ch = c.next()) {
+        h = 31 * h + ch;
+        len++;
+      }
+      this.hash = h;
+      this.length = len;
+    }
+
+    Cursor cursor() {
+      return new Cursor(this.buf, this.start, this.end);
+    }
+
+    boolean isBlank() {
+      for (int i = this.start; i < this.end; i++) {
+        if (isWhitespace(this.buf.get(i)) == false) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean isImport() {
+      int i = this.start;
+      while (i < this.end && isWhitespace(this.buf.get(i))) {
+        i++;
+      }
+      String keyword = "import";
+      if (this.end - i <= keyword.length()) {
+        return false;
+      }
+      for (int k = 0; k < keyword.length(); k++) {
+        if (this.buf.get(i + k) != keyword.charAt(k)) {
+          return false;
+        }
+      }
+      return isWhitespace(this.buf.get(i + keyword.length()));
+    }
+
+    @Override
+    public int compareTo(Line o) {
+      Cursor l = this.cursor();
+      Cursor r = o.cursor();
+      while (true) {
+        int a = l.next();
+        int b = r.next();
+        if (a != b || a == -1) {
+          return a - b;
+        }
+      }
+    }
+  }
+
+  /** iterates normalized characters of a line. */
+  class Cursor {
+    final CharBuffer buf;
+    final int end;
+    final boolean collapse = normalizations.contains(Normalization.WHITESPACE);
+    int pos;
+
+    Cursor(CharBuffer buf, int start, int end) {
+      this.buf = buf;
+      this.pos = start;
+      this.end = end;
+    }
+
+    /** @return next character, or {@code -1} at the end of the line. */
+    int next() {
+      if (this.end <= this.pos) {
+        return -1;
+      }
+      char c = this.buf.get(this.pos++);
+      if (this.collapse && isWhitespace(c)) {
+        while (this.pos < this.end && isWhitespace(this.buf.get(this.pos))) {
+          this.pos++;
+        }
+        return ' ';
+      }
+      return c;
+    }
+  }
+}
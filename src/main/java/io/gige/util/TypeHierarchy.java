@@ -15,6 +15,15 @@
  */
 package io.gige.util;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -23,14 +32,153 @@ import java.util.stream.StreamSupport;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 
-/** @author taichi */
+/**
+ * supertypes of a type.
+ *
+ * <p>direct supertypes and computed orders of each type are memoized per {@link
+ * ProcessingEnvironment}, so repeated queries over the same hierarchy are cheap. each thread keeps
+ * memos for the environment it used last. hierarchies with unresolved supertypes are not memoized,
+ * because those supertypes may be generated in later rounds.
+ *
+ * @author taichi
+ */
 public class TypeHierarchy implements Spliterator<TypeElement> {
 
+  /** @return the type and its superclasses. */
   public static Stream<TypeElement> of(ProcessingEnvironment env, TypeElement element) {
     return StreamSupport.stream(new TypeHierarchy(env, element), false);
   }
 
+  /** @return the type, its superclasses and all superinterfaces in linearized order. */
+  public static Stream<TypeElement> all(ProcessingEnvironment env, TypeElement element) {
+    return linearized(env, element).stream();
+  }
+
+  /** @return the type and all supertypes, nearest first. */
+  public static List<TypeElement> breadthFirst(ProcessingEnvironment env, TypeElement element) {
+    Memo memo = Memo.of(env);
+    List<TypeElement> result = memo.breadthFirst.get(element);
+    if (result == null) {
+      Set<TypeElement> visited = new LinkedHashSet<>();
+      Deque<TypeElement> queue = new ArrayDeque<>();
+      queue.add(element);
+      visited.add(element);
+      while (queue.isEmpty() == false) {
+        for (TypeElement s : supertypes(memo, queue.poll())) {
+          if (visited.add(s)) {
+            queue.add(s);
+          }
+        }
+      }
+      result = List.copyOf(visited);
+      if (resolved(memo, result)) {
+        memo.breadthFirst.put(element, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the type and all supertypes. every type precedes its supertypes, and a superclass
+   *     precedes interfaces which are declared with it.
+   */
+  public static List<TypeElement> linearized(ProcessingEnvironment env, TypeElement element) {
+    Memo memo = Memo.of(env);
+    List<TypeElement> result = memo.linearized.get(element);
+    if (result == null) {
+      List<TypeElement> list = new ArrayList<>();
+      postorder(memo, element, new HashSet<>(), list);
+      Collections.reverse(list);
+      result = Collections.unmodifiableList(list);
+      if (resolved(memo, result)) {
+        memo.linearized.put(element, result);
+      }
+    }
+    return result;
+  }
+
+  /** @return {@code true} if direct supertypes of every type are resolved, and memoized. */
+  static boolean resolved(Memo memo, List<TypeElement> types) {
+    for (TypeElement t : types) {
+      if (memo.supertypes.containsKey(t) == false) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static void postorder(
+      Memo memo, TypeElement element, Set<TypeElement> visited, List<TypeElement> result) {
+    if (visited.add(element)) {
+      List<TypeElement> supertypes = supertypes(memo, element);
+      for (int i = supertypes.size() - 1; 0 <= i; i--) {
+        postorder(memo, supertypes.get(i), visited, result);
+      }
+      result.add(element);
+    }
+  }
+
+  /** @return {@code true} if the supertype is the type itself or one of its supertypes. */
+  public static boolean isSubtype(
+      ProcessingEnvironment env, TypeElement element, TypeElement supertype) {
+    Memo memo = Memo.of(env);
+    Set<TypeElement> closure = memo.closures.get(element);
+    if (closure == null) {
+      closure = Set.copyOf(linearized(env, element));
+      if (memo.linearized.containsKey(element)) {
+        memo.closures.put(element, closure);
+      }
+    }
+    return closure.contains(supertype);
+  }
+
+  /** @return the superclass followed by direct superinterfaces in declared order. */
+  public static List<TypeElement> supertypes(ProcessingEnvironment env, TypeElement element) {
+    return supertypes(Memo.of(env), element);
+  }
+
+  static TypeElement superclass(Memo memo, TypeElement element) {
+    Optional<TypeElement> result = memo.superclasses.get(element);
+    if (result == null) {
+      TypeMirror tm = element.getSuperclass();
+      if (tm.getKind() == TypeKind.ERROR) {
+        return GigeTypes.to(memo.env, tm);
+      }
+      result =
+          tm.getKind() == TypeKind.NONE
+              ? Optional.empty()
+              : Optional.ofNullable(GigeTypes.to(memo.env, tm));
+      memo.superclasses.put(element, result);
+    }
+    return result.orElse(null);
+  }
+
+  static List<TypeElement> supertypes(Memo memo, TypeElement element) {
+    List<TypeElement> result = memo.supertypes.get(element);
+    if (result == null) {
+      List<TypeElement> list = new ArrayList<>();
+      boolean resolved = element.getSuperclass().getKind() != TypeKind.ERROR;
+      TypeElement sc = superclass(memo, element);
+      if (sc != null) {
+        list.add(sc);
+      }
+      for (TypeMirror tm : element.getInterfaces()) {
+        resolved &= tm.getKind() != TypeKind.ERROR;
+        TypeElement te = GigeTypes.to(memo.env, tm);
+        if (te != null) {
+          list.add(te);
+        }
+      }
+      result = Collections.unmodifiableList(list);
+      if (resolved) {
+        memo.supertypes.put(element, result);
+      }
+    }
+    return result;
+  }
+
   final ProcessingEnvironment env;
 
   TypeElement current;
@@ -43,7 +191,7 @@ public class TypeHierarchy implements Spliterator<TypeElement> {
   @Override
   public boolean tryAdvance(Consumer<? super TypeElement> action) {
     action.accept(this.current);
-    this.current = GigeTypes.to(this.env, this.current.getSuperclass());
+    this.current = superclass(Memo.of(this.env), this.current);
     return this.current != null && this.current.asType().getKind() != TypeKind.NONE;
   }
 
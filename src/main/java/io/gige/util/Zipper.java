@@ -17,22 +17,63 @@ package io.gige.util;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-/** @author taichi */
+/**
+ * pairs elements of two spliterators by index, until either of them runs out.
+ *
+ * <p>it splits only if both sides are SIZED and SUBSIZED. the left side is split, and as many
+ * elements of the right side are buffered for the prefix, so pairs never change in parallel
+ * streams.
+ *
+ * @author taichi
+ */
 public class Zipper<L, R, T> implements Spliterator<T> {
 
   public static <L, R, T> Stream<T> of(Stream<L> left, Stream<R> right, BiFunction<L, R, T> fn) {
     return StreamSupport.stream(new Zipper<>(left.spliterator(), right.spliterator(), fn), false);
   }
 
+  public static IntStream ofInt(IntStream left, IntStream right, IntBinaryOperator fn) {
+    return StreamSupport.intStream(
+        new IntZipper(left.spliterator(), right.spliterator(), fn), false);
+  }
+
+  public static LongStream ofLong(LongStream left, LongStream right, LongBinaryOperator fn) {
+    return StreamSupport.longStream(
+        new LongZipper(left.spliterator(), right.spliterator(), fn), false);
+  }
+
+  public static DoubleStream ofDouble(
+      DoubleStream left, DoubleStream right, DoubleBinaryOperator fn) {
+    return StreamSupport.doubleStream(
+        new DoubleZipper(left.spliterator(), right.spliterator(), fn), false);
+  }
+
+  static final int CHARACTERISTICS = ORDERED | SIZED | SUBSIZED;
+
   final Spliterator<L> lefts;
   final Spliterator<R> rights;
   final BiFunction<L, R, T> zipWith;
 
+  L left;
+  R right;
+  final Consumer<L> takeLeft = l -> this.left = l;
+  final Consumer<R> takeRight = r -> this.right = r;
+
   public Zipper(Spliterator<L> lefts, Spliterator<R> rights, BiFunction<L, R, T> zipWith) {
     super();
     this.lefts = Objects.requireNonNull(lefts);
@@ -42,22 +83,43 @@ public class Zipper<L, R, T> implements Spliterator<T> {
 
   @Override
   public boolean tryAdvance(Consumer<? super T> action) {
-    boolean[] rNext = {false};
-    boolean lNext =
-        this.lefts.tryAdvance(
-            l -> {
-              rNext[0] =
-                  this.rights.tryAdvance(
-                      r -> {
-                        action.accept(this.zipWith.apply(l, r));
-                      });
-            });
-    return lNext && rNext[0];
+    if (this.lefts.tryAdvance(this.takeLeft) && this.rights.tryAdvance(this.takeRight)) {
+      T t = this.zipWith.apply(this.left, this.right);
+      this.left = null;
+      this.right = null;
+      action.accept(t);
+      return true;
+    }
+    return false;
   }
 
   @Override
   public Spliterator<T> trySplit() {
-    return new Zipper<>(this.lefts.trySplit(), this.rights.trySplit(), this.zipWith);
+    Spliterator<L> prefix = trySplitLeft(this.lefts, this.rights);
+    if (prefix == null) {
+      return null;
+    }
+    int size = (int) Math.min(prefix.getExactSizeIfKnown(), this.rights.getExactSizeIfKnown());
+    Object[] buffer = new Object[size];
+    int i = 0;
+    while (i < size && this.rights.tryAdvance(this.takeRight)) {
+      buffer[i++] = this.right;
+    }
+    this.right = null;
+    return new Zipper<>(
+        prefix, Spliterators.<R>spliterator(buffer, 0, i, ORDERED), this.zipWith);
+  }
+
+  /** @return the prefix of the left side, or {@code null} if the pair can not be split. */
+  static <S extends Spliterator<?>> S trySplitLeft(S lefts, Spliterator<?> rights) {
+    if (lefts.hasCharacteristics(SIZED | SUBSIZED) == false
+        || rights.hasCharacteristics(SIZED | SUBSIZED) == false
+        || Integer.MAX_VALUE <= lefts.estimateSize()) {
+      return null;
+    }
+    @SuppressWarnings("unchecked")
+    S prefix = (S) lefts.trySplit();
+    return prefix;
   }
 
   @Override
@@ -67,6 +129,161 @@ public class Zipper<L, R, T> implements Spliterator<T> {
 
   @Override
   public int characteristics() {
-    return this.lefts.characteristics() & this.rights.characteristics();
+    return this.lefts.characteristics() & this.rights.characteristics() & CHARACTERISTICS;
+  }
+
+  static class IntZipper implements Spliterator.OfInt {
+    final Spliterator.OfInt lefts;
+    final Spliterator.OfInt rights;
+    final IntBinaryOperator zipWith;
+
+    int left;
+    int right;
+    final IntConsumer takeLeft = l -> this.left = l;
+    final IntConsumer takeRight = r -> this.right = r;
+
+    IntZipper(Spliterator.OfInt lefts, Spliterator.OfInt rights, IntBinaryOperator zipWith) {
+      this.lefts = Objects.requireNonNull(lefts);
+      this.rights = Objects.requireNonNull(rights);
+      this.zipWith = Objects.requireNonNull(zipWith);
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+      if (this.lefts.tryAdvance(this.takeLeft) && this.rights.tryAdvance(this.takeRight)) {
+        action.accept(this.zipWith.applyAsInt(this.left, this.right));
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public Spliterator.OfInt trySplit() {
+      Spliterator.OfInt prefix = trySplitLeft(this.lefts, this.rights);
+      if (prefix == null) {
+        return null;
+      }
+      int size = (int) Math.min(prefix.getExactSizeIfKnown(), this.rights.getExactSizeIfKnown());
+      int[] buffer = new int[size];
+      int i = 0;
+      while (i < size && this.rights.tryAdvance(this.takeRight)) {
+        buffer[i++] = this.right;
+      }
+      return new IntZipper(prefix, Spliterators.spliterator(buffer, 0, i, ORDERED), this.zipWith);
+    }
+
+    @Override
+    public long estimateSize() {
+      return Math.min(this.lefts.estimateSize(), this.rights.estimateSize());
+    }
+
+    @Override
+    public int characteristics() {
+      return this.lefts.characteristics() & this.rights.characteristics() & CHARACTERISTICS;
+    }
+  }
+
+  static class LongZipper implements Spliterator.OfLong {
+    final Spliterator.OfLong lefts;
+    final Spliterator.OfLong rights;
+    final LongBinaryOperator zipWith;
+
+    long left;
+    long right;
+    final LongConsumer takeLeft = l -> this.left = l;
+    final LongConsumer takeRight = r -> this.right = r;
+
+    LongZipper(Spliterator.OfLong lefts, Spliterator.OfLong rights, LongBinaryOperator zipWith) {
+      this.lefts = Objects.requireNonNull(lefts);
+      this.rights = Objects.requireNonNull(rights);
+      this.zipWith = Objects.requireNonNull(zipWith);
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+      if (this.lefts.tryAdvance(this.takeLeft) && this.rights.tryAdvance(this.takeRight)) {
+        action.accept(this.zipWith.applyAsLong(this.left, this.right));
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+      Spliterator.OfLong prefix = trySplitLeft(this.lefts, this.rights);
+      if (prefix == null) {
+        return null;
+      }
+      int size = (int) Math.min(prefix.getExactSizeIfKnown(), this.rights.getExactSizeIfKnown());
+      long[] buffer = new long[size];
+      int i = 0;
+      while (i < size && this.rights.tryAdvance(this.takeRight)) {
+        buffer[i++] = this.right;
+      }
+      return new LongZipper(prefix, Spliterators.spliterator(buffer, 0, i, ORDERED), this.zipWith);
+    }
+
+    @Override
+    public long estimateSize() {
+      return Math.min(this.lefts.estimateSize(), this.rights.estimateSize());
+    }
+
+    @Override
+    public int characteristics() {
+      return this.lefts.characteristics() & this.rights.characteristics() & CHARACTERISTICS;
+    }
+  }
+
+  static class DoubleZipper implements Spliterator.OfDouble {
+    final Spliterator.OfDouble lefts;
+    final Spliterator.OfDouble rights;
+    final DoubleBinaryOperator zipWith;
+
+    double left;
+    double right;
+    final DoubleConsumer takeLeft = l -> this.left = l;
+    final DoubleConsumer takeRight = r -> this.right = r;
+
+    DoubleZipper(
+        Spliterator.OfDouble lefts, Spliterator.OfDouble rights, DoubleBinaryOperator zipWith) {
+      this.lefts = Objects.requireNonNull(lefts);
+      this.rights = Objects.requireNonNull(rights);
+      this.zipWith = Objects.requireNonNull(zipWith);
+    }
+
+    @Override
+    public boolean tryAdvance(DoubleConsumer action) {
+      if (this.lefts.tryAdvance(this.takeLeft) && this.rights.tryAdvance(this.takeRight)) {
+        action.accept(this.zipWith.applyAsDouble(this.left, this.right));
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public Spliterator.OfDouble trySplit() {
+      Spliterator.OfDouble prefix = trySplitLeft(this.lefts, this.rights);
+      if (prefix == null) {
+        return null;
+      }
+      int size = (int) Math.min(prefix.getExactSizeIfKnown(), this.rights.getExactSizeIfKnown());
+      double[] buffer = new double[size];
+      int i = 0;
+      while (i < size && this.rights.tryAdvance(this.takeRight)) {
+        buffer[i++] = this.right;
+      }
+      return new DoubleZipper(
+          prefix, Spliterators.spliterator(buffer, 0, i, ORDERED), this.zipWith);
+    }
+
+    @Override
+    public long estimateSize() {
+      return Math.min(this.lefts.estimateSize(), this.rights.estimateSize());
+    }
+
+    @Override
+    public int characteristics() {
+      return this.lefts.characteristics() & this.rights.characteristics() & CHARACTERISTICS;
+    }
   }
 }
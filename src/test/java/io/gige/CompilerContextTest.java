@@ -15,25 +15,51 @@
  */
 package io.gige;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
 import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.TestTemplate;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.opentest4j.AssertionFailedError;
 
 import io.gige.junit.CompilerExtension;
+import io.gige.util.ElementIndex;
+import io.gige.util.GigeTypes;
+import io.gige.util.SourceComparator;
+import io.gige.util.TypeHierarchy;
 
 /** @author taichi */
 @ExtendWith(CompilerExtension.class)
@@ -99,6 +125,319 @@ public class CompilerContextTest {
     Assertions.assertTrue(processor.called);
   }
 
+  @TestTemplate
+  public void inMemory(CompilerContext context) throws Exception {
+    StringBuilder stb = new StringBuilder();
+    stb.append("package test.in.memory;");
+    stb.append("@io.gige.TestAnnotation ");
+    stb.append("public class Mem {}");
+
+    context.set(Unit.of("test.in.memory.Mem", stb.toString()));
+
+    TestProcessor processor = new TestProcessor();
+
+    CompilationResult result =
+        context
+            .inMemory()
+            .set(processor)
+            .compile(
+                ctx -> {
+                  Optional<String> src = ctx.findOutputSource("aaa.bbb.ccc.Ddd");
+                  Assertions.assertTrue(src.isPresent());
+                  Assertions.assertEquals("package aaa.bbb.ccc;public class Ddd {}", src.get());
+
+                  Optional<String> txt = ctx.findOutputResource("", "eee.txt");
+                  Assertions.assertTrue(txt.isPresent());
+                  Assertions.assertEquals("fff", txt.get());
+                });
+
+    Assertions.assertTrue(result.success());
+    Assertions.assertTrue(processor.called);
+    Assertions.assertNull(context.temporary);
+  }
+
+  @TestTemplate
+  public void temporaryOutputs(CompilerContext context) throws Exception {
+    Path temporary;
+    try (CompilerContext lambda = new CompilerContext(() -> ToolProvider.getSystemJavaCompiler())) {
+      CompilationResult result =
+          lambda
+              .setSourcePath("src/test/java", "src/test/resources")
+              .setUnits(TestSource.class)
+              .compile();
+      Assertions.assertTrue(result.success());
+      temporary = lambda.getClassOutputs().get(0).toPath();
+      Assertions.assertTrue(temporary.getFileName().toString().startsWith("gige-"));
+      Assertions.assertTrue(Files.isDirectory(temporary));
+    }
+    Assertions.assertFalse(Files.exists(temporary));
+
+    context.compile();
+    String name = context.getClassOutputs().get(0).toPath().getFileName().toString();
+    Assertions.assertTrue(name.startsWith("gige-" + context.provider + "-"));
+  }
+
+  @TestTemplate
+  public void assertEqualsNormalized(CompilerContext context) throws Exception {
+    CompilationResult result =
+        context
+            .set(new TestProcessor())
+            .compile(
+                ctx -> {
+                  String expected = "\r\n  package  aaa.bbb.ccc;public class Ddd {}\r\n\r\n";
+                  ctx.assertEquals(expected, "aaa.bbb.ccc.Ddd", SourceComparator.LENIENT);
+                  Assertions.assertThrows(
+                      AssertionFailedError.class,
+                      () -> ctx.assertEquals(expected, "aaa.bbb.ccc.Ddd", SourceComparator.EXACT));
+                });
+
+    Assertions.assertTrue(result.success());
+  }
+
+  @TestTemplate
+  public void isolatedOutputs(CompilerContext context) throws Exception {
+    CompilationResult result = context.set(new TestProcessor()).compile();
+    Assertions.assertTrue(result.success());
+
+    File dir = context.getSourceOutputs().get(0);
+    Assertions.assertTrue(new File(dir, "aaa/bbb/ccc/Ddd.java").exists());
+    try (CompilerContext other = new CompilerContext(context.provider)) {
+      Assertions.assertNotEquals(dir, other.getSourceOutputs().get(0));
+    }
+
+    context.close();
+    Assertions.assertFalse(dir.exists());
+  }
+
+  @TestTemplate
+  public void pooled(CompilerContext context) throws Exception {
+    List<StandardJavaFileManager> managers = new ArrayList<>();
+    List<CompilationResult> results = new ArrayList<>();
+    try (CompilerPool pool = new CompilerPool()) {
+      for (int i = 0; i < 2; i++) {
+        try (CompilerContext ctx = new CompilerContext(context.provider)) {
+          CompilationResult result =
+              ctx.set(pool)
+                  .setSourcePath("src/test/java", "src/test/resources")
+                  .setUnits(TestSource.class)
+                  .set(new TestProcessor())
+                  .compile(pc -> managers.add(pc.getManager()));
+          Assertions.assertTrue(result.success());
+          Assertions.assertFalse(result.getOutputs().isEmpty());
+          results.add(result);
+        }
+      }
+    }
+    Assertions.assertEquals(2, managers.size());
+    Assertions.assertSame(managers.get(0), managers.get(1));
+    // the manager may serve another context after it returns to the pool.
+    Assertions.assertThrows(AssertionFailedError.class, () -> results.get(0).getOutputs());
+  }
+
+  @TestTemplate
+  public void cached(CompilerContext context) throws Exception {
+    Path dir = Files.createTempDirectory("gige-cache-");
+    try {
+      CompilationCache cache = new CompilationCache(dir, CompilationCache.DEFAULT_MAX_BYTES);
+      List<CompilationResult> results = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        try (CompilerContext ctx = new CompilerContext(context.provider)) {
+          results.add(
+              ctx.set(cache)
+                  .setSourcePath("src/test/java", "src/test/resources")
+                  .setUnits(TestSource.class)
+                  .set(new KeyedProcessor())
+                  .compile());
+        }
+      }
+      CompilationResult first = results.get(0);
+      CompilationResult second = results.get(1);
+      Assertions.assertFalse(first.isCached());
+      Assertions.assertTrue(second.isCached());
+      Assertions.assertEquals(first.success(), second.success());
+      Assertions.assertEquals(first.getDiagnostics().size(), second.getDiagnostics().size());
+      Assertions.assertTrue(second.findOutputSource("aaa.bbb.ccc.Ddd").isPresent());
+    } finally {
+      try (Stream<Path> files = Files.walk(dir)) {
+        files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  @SupportedAnnotationTypes("io.gige.TestAnnotation")
+  static class KeyedProcessor extends TestProcessor implements CompilationCache.Keyed {
+    @Override
+    public String getCacheKey() {
+      return "";
+    }
+  }
+
+  @TestTemplate
+  public void cacheKeys(CompilerContext context) throws Exception {
+    CompilationCache cache = new CompilationCache();
+    StandardJavaFileManager manager =
+        ToolProvider.getSystemJavaCompiler().getStandardFileManager(null, null, null);
+    String x = "package a; class Foo {}";
+    String y = "package b; class Foo {}";
+    try (CompilerContext one = new CompilerContext(() -> ToolProvider.getSystemJavaCompiler());
+        CompilerContext two = new CompilerContext(() -> ToolProvider.getSystemJavaCompiler())) {
+      one.set(Unit.of("a.Foo", x), Unit.of("b.Foo", y));
+      two.set(Unit.of("a.Foo", y), Unit.of("b.Foo", x));
+      String digest = cache.digest(one, one.map(manager, one.units));
+      Assertions.assertNotEquals(digest, cache.digest(two, two.map(manager, two.units)));
+
+      two.set(Unit.of("a.Foo", x), Unit.of("b.Foo", y));
+      Assertions.assertEquals(digest, cache.digest(two, two.map(manager, two.units)));
+
+      two.set(new TestProcessor());
+      Assertions.assertNull(cache.digest(two, two.map(manager, two.units)));
+      two.set(new KeyedProcessor());
+      String keyed = cache.digest(two, two.map(manager, two.units));
+      Assertions.assertNotNull(keyed);
+
+      // classes next to the processor, such as its helpers, are stamped too.
+      Path helper = Paths.get(TestSource.class.getResource("TestSource.class").toURI());
+      FileTime time = Files.getLastModifiedTime(helper);
+      try {
+        Files.setLastModifiedTime(helper, FileTime.fromMillis(time.toMillis() + 1000));
+        Assertions.assertNotEquals(keyed, cache.digest(two, two.map(manager, two.units)));
+      } finally {
+        Files.setLastModifiedTime(helper, time);
+      }
+    } finally {
+      manager.close();
+    }
+  }
+
+  CompilerContext newContext(CompilerContext context) {
+    return new CompilerContext(context.provider)
+        .setSourcePath("src/test/java", "src/test/resources")
+        .setUnits(TestSource.class);
+  }
+
+  @TestTemplate
+  public void snapshot(CompilerContext context) throws Exception {
+    Path dir = Files.createTempDirectory("gige-snapshot-");
+    Path manifest = dir.resolve("test.snapshot");
+    try {
+      try (CompilerContext ctx = this.newContext(context).set(new TestProcessor())) {
+        CompilationResult result = ctx.compile();
+        AssertionFailedError e =
+            Assertions.assertThrows(
+                AssertionFailedError.class,
+                () -> new SnapshotStore(dir, false).of("test").verify(result));
+        Assertions.assertTrue(e.getMessage().contains("snapshot test is missing"));
+        Assertions.assertFalse(Files.exists(manifest));
+
+        new SnapshotStore(dir, true).of("test").verify(result);
+        Assertions.assertEquals(2, Files.readAllLines(manifest).size());
+      }
+      try (CompilerContext ctx = this.newContext(context).set(new TestProcessor())) {
+        new SnapshotStore(dir, false).verify("test", ctx.compile());
+      }
+      try (CompilerContext ctx = this.newContext(context)) {
+        CompilationResult result = ctx.compile();
+        AssertionFailedError e =
+            Assertions.assertThrows(
+                AssertionFailedError.class,
+                () -> new SnapshotStore(dir, false).verify("test", result));
+        Assertions.assertTrue(e.getMessage().contains("missing: aaa/bbb/ccc/Ddd.java"));
+
+        new SnapshotStore(dir, true).verify("test", result);
+        Assertions.assertEquals(0, Files.readAllLines(manifest).size());
+        // contents of the previous snapshot are pruned.
+        try (Stream<Path> files = Files.walk(dir.resolve("objects"))) {
+          Assertions.assertFalse(files.anyMatch(Files::isRegularFile));
+        }
+      }
+    } finally {
+      try (Stream<Path> files = Files.walk(dir)) {
+        files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  @TestTemplate
+  public void processingOnly(CompilerContext context) throws Exception {
+    CompilationResult result = context.processingOnly().set(new TestProcessor()).compile();
+    Assertions.assertTrue(result.success());
+    Assertions.assertTrue(result.findOutputSource("aaa.bbb.ccc.Ddd").isPresent());
+    try (Stream<Path> files = Files.walk(context.getClassOutputs().get(0).toPath())) {
+      Assertions.assertFalse(files.anyMatch(p -> p.toString().endsWith(".class")));
+    }
+  }
+
+  @TestTemplate
+  public void processingOnlyReportsErrors(CompilerContext context) throws Exception {
+    Unit broken = Unit.of("aaa.Broken", "package aaa; public class Broken {");
+    CompilationResult result = context.processingOnly().set(broken).compile();
+    Assertions.assertFalse(result.success());
+    Assertions.assertTrue(
+        result.getDiagnostics().stream().anyMatch(d -> d.getKind() == Kind.ERROR));
+  }
+
+  @TestTemplate
+  public void timings(CompilerContext context) throws Exception {
+    CompilationResult result = context.set(new TestProcessor()).timeProcessors().compile();
+    Assertions.assertTrue(result.success());
+
+    Timings timings = result.getTimings();
+    Assertions.assertTrue(0 < timings.getRounds());
+    Assertions.assertTrue(timings.getRound(0).containsKey(TestProcessor.class.getName()));
+    Assertions.assertTrue(timings.getProcessors().containsKey(TestProcessor.class.getName()));
+    for (Timings.Phase p : Timings.Phase.values()) {
+      Assertions.assertFalse(timings.get(p).isNegative());
+    }
+    Assertions.assertFalse(timings.get(Timings.Phase.PARSE).isZero());
+    Assertions.assertFalse(timings.get(Timings.Phase.PROCESSING).isZero());
+    Assertions.assertFalse(timings.get(Timings.Phase.GENERATE).isZero());
+
+    // processors are not wrapped by default.
+    try (CompilerContext plain = this.newContext(context).set(new TestProcessor())) {
+      CompilationResult other = plain.compile();
+      Assertions.assertTrue(other.success());
+      Assertions.assertEquals(0, other.getTimings().getRounds());
+      Assertions.assertFalse(other.getTimings().get(Timings.Phase.PROCESSING).isZero());
+    }
+  }
+
+  @TestTemplate
+  @Compilers(parallel = true)
+  public void parallel(CompilerContext context) throws Exception {
+    String current = Thread.currentThread().getName();
+    List<String> threads = new ArrayList<>();
+    CompilationResult result =
+        context
+            .setProcessors(TestProcessor::new)
+            .compile(
+                ctx -> {
+                  threads.add(Thread.currentThread().getName());
+                  Optional<String> src = ctx.findOutputSource("aaa.bbb.ccc.Ddd");
+                  Assertions.assertTrue(src.isPresent());
+                });
+
+    Assertions.assertTrue(result.success());
+    Assertions.assertFalse(result.getDiagnostics().isEmpty());
+    Assertions.assertEquals(1, threads.size());
+    if (context.provider == Compilers.Type.Eclipse) {
+      Assertions.assertNotEquals(current, threads.get(0));
+    }
+  }
+
+  @TestTemplate
+  @Compilers(parallel = true)
+  public void parallelWithInstances(CompilerContext context) throws Exception {
+    String current = Thread.currentThread().getName();
+    TestProcessor processor = new TestProcessor();
+    CompilationResult result =
+        context
+            .set(processor)
+            .compile(ctx -> Assertions.assertEquals(current, Thread.currentThread().getName()));
+
+    Assertions.assertTrue(result.success());
+    Assertions.assertTrue(processor.called);
+  }
+
   @TestTemplate
   public void diagnostics(CompilerContext context) throws Exception {
     DiagnosticProcessor processor = new DiagnosticProcessor();
@@ -125,6 +464,30 @@ public class CompilerContextTest {
             .filter(Diagnostics.filter(TestSource.class).and(Diagnostics.filter(Kind.ERROR)))
             .findFirst();
     Assertions.assertTrue(and.isPresent());
+
+    DiagnosticStore store = result.diagnostics();
+    Assertions.assertEquals(3, store.count());
+    Assertions.assertEquals(1, store.errors().count());
+    Assertions.assertEquals(1, store.notes().count());
+    Assertions.assertEquals(2, store.in(TestSource.class).count());
+    Assertions.assertEquals(1, store.errors().in(TestSource.class).count());
+    Assertions.assertEquals(1, store.in(TestSource.class).warnings().count());
+    Assertions.assertTrue(store.errors().in(DiagnosticProcessor.class).isEmpty());
+    Assertions.assertTrue(store.errors().warnings().isEmpty());
+    long line = store.errors().first().get().getLineNumber();
+    Assertions.assertEquals(2, store.in(TestSource.class).at(line).count());
+  }
+
+  @TestTemplate
+  public void columnNumber(CompilerContext context) throws Exception {
+    String src = "package aaa;\r\npublic class Col {\n\tint x = \"s\";\n}\n";
+    CompilationResult result = context.set(Unit.of("aaa.Col", src)).compile();
+    Assertions.assertFalse(result.success());
+
+    Diagnostic<? extends JavaFileObject> error = result.diagnostics().errors().first().get();
+    Assertions.assertEquals(3, error.getLineNumber());
+    // the tab expands to 8 columns
+    Assertions.assertEquals(17, error.getColumnNumber());
   }
 
   @TestTemplate
@@ -308,6 +671,118 @@ public class CompilerContextTest {
     Assertions.assertTrue(result.success());
   }
 
+  @TestTemplate
+  public void memberIndex(CompilerContext context) throws Exception {
+    CompilationResult result =
+        context.compile(
+            ctx -> {
+              TypeElement element =
+                  ctx.getTypeElement(TestSource.class).orElseThrow(AssertionError::new);
+              Assertions.assertSame(ctx.getMembers(element), ctx.getMembers(element));
+
+              Assertions.assertTrue(ctx.getConstructor(element, Map.class).isPresent());
+              Assertions.assertFalse(ctx.getConstructor(element, long.class).isPresent());
+              Assertions.assertFalse(ctx.getConstructor(element, "long").isPresent());
+              Assertions.assertFalse(
+                  ctx.getMethod(element, "aaa", int.class, int.class).isPresent());
+            });
+    Assertions.assertTrue(result.success());
+  }
+
+  @TestTemplate
+  public void typeHierarchy(CompilerContext context) throws Exception {
+    CompilationResult result =
+        context.compile(
+            ctx -> {
+              ProcessingEnvironment env = ctx.getProcessingEnvironment();
+              TypeElement list = ctx.getTypeElement(ArrayList.class).get();
+              TypeElement collection = ctx.getTypeElement(Collection.class).get();
+              TypeElement object = ctx.getTypeElement(Object.class).get();
+
+              List<TypeElement> linearized = TypeHierarchy.linearized(env, list);
+              Assertions.assertSame(linearized, TypeHierarchy.linearized(env, list));
+              Assertions.assertEquals(list, linearized.get(0));
+              Assertions.assertEquals(
+                  ctx.getTypeElement(AbstractList.class).get(), linearized.get(1));
+              Assertions.assertTrue(
+                  linearized.indexOf(ctx.getTypeElement(List.class).get())
+                      < linearized.indexOf(collection));
+              Assertions.assertEquals(
+                  Set.copyOf(linearized), Set.copyOf(TypeHierarchy.breadthFirst(env, list)));
+              Assertions.assertEquals(4, TypeHierarchy.of(env, list).count());
+
+              Assertions.assertTrue(TypeHierarchy.isSubtype(env, list, collection));
+              Assertions.assertTrue(TypeHierarchy.isSubtype(env, list, object));
+              Assertions.assertFalse(TypeHierarchy.isSubtype(env, collection, list));
+
+              Assertions.assertTrue(ctx.findMethod(ArrayList.class, "stream").isPresent());
+            });
+    Assertions.assertTrue(result.success());
+  }
+
+  @TestTemplate
+  public void typeMirrorCache(CompilerContext context) throws Exception {
+    CompilationResult result =
+        context.compile(
+            ctx -> {
+              ProcessingEnvironment env = ctx.getProcessingEnvironment();
+              TypeMirror strings = ctx.getTypeMirror("java.lang.String[][]").get();
+              Assertions.assertSame(strings, ctx.getTypeMirror(String[][].class).get());
+              Assertions.assertSame(
+                  strings, GigeTypes.getTypeMirror(env, "java.lang.String[][]").get());
+              Assertions.assertEquals("java.lang.String[][]", strings.toString());
+              Assertions.assertEquals(
+                  TypeKind.ARRAY, ctx.getTypeMirror(int[].class).get().getKind());
+              Assertions.assertEquals(TypeKind.INT, ctx.getTypeMirror(int.class).get().getKind());
+
+              Assertions.assertFalse(ctx.getTypeMirror("aaa.Unknown[]").isPresent());
+              Assertions.assertFalse(ctx.getTypeMirror("aaa.Unknown[]").isPresent());
+              Assertions.assertFalse(ctx.getTypeElement("aaa.Unknown").isPresent());
+              Assertions.assertSame(
+                  ctx.getTypeElement(String.class).get(),
+                  GigeTypes.getTypeElement(env, "java.lang.String"));
+            });
+    Assertions.assertTrue(result.success());
+  }
+
+  @TestTemplate
+  public void elementIndex(CompilerContext context) throws Exception {
+    CompilationResult result =
+        context.compile(
+            ctx -> {
+              ElementIndex index = ctx.getElements();
+              Assertions.assertSame(index, ctx.getElements());
+              TypeElement element = ctx.getTypeElement(TestSource.class).get();
+              Assertions.assertEquals(element, index.get("io.gige.TestSource").get());
+              Assertions.assertEquals(
+                  List.of(element), index.types().annotatedWith(TestAnnotation.class).list());
+
+              List<String> methods =
+                  index
+                      .methods()
+                      .modifiers(Modifier.PUBLIC)
+                      .enclosedIn(index.types().annotatedWith(TestAnnotation.class))
+                      .stream()
+                      .map(e -> e.getSimpleName().toString())
+                      .collect(Collectors.toList());
+              Assertions.assertEquals(List.of("setAaa", "of"), methods);
+              Assertions.assertEquals(2, index.methods().named("aaa").count());
+              Assertions.assertEquals(4, index.fields().count());
+
+              ElementIndex.Query parameters = index.all().kind(ElementKind.PARAMETER).named("aaa");
+              Element parameter = parameters.first().get();
+              Assertions.assertEquals(
+                  ElementKind.CONSTRUCTOR, parameter.getEnclosingElement().getKind());
+              Assertions.assertEquals(3, parameters.count());
+              Assertions.assertEquals(2, parameters.enclosedIn(index.methods()).count());
+
+              Assertions.assertTrue(index.methods().annotatedWith(TestAnnotation.class).isEmpty());
+              Assertions.assertTrue(index.types().named("TestSource").named("Other").isEmpty());
+              Assertions.assertTrue(index.fields().kind(ElementKind.METHOD).isEmpty());
+            });
+    Assertions.assertTrue(result.success());
+  }
+
   @TestTemplate
   public void genericMethodWithWhitespace(CompilerContext context) throws Exception {
     CompilationResult result =
@@ -342,6 +817,32 @@ public class CompilerContextTest {
     Assertions.assertTrue(result.success());
   }
 
+  @TestTemplate
+  public void sameTypes(CompilerContext context) throws Exception {
+    CompilationResult result =
+        context.compile(
+            ctx -> {
+              TypeElement element =
+                  ctx.getTypeElement(TestSource.class).orElseThrow(AssertionError::new);
+              ExecutableElement mtd =
+                  ctx.getMethod(element, "aaa", int.class).orElseThrow(AssertionError::new);
+
+              Assertions.assertTrue(ctx.isSameTypes(mtd, new String[] {"int"}));
+              Assertions.assertFalse(ctx.isSameTypes(mtd, new String[] {}));
+              Assertions.assertFalse(ctx.isSameTypes(mtd, new String[] {"int", "int"}));
+
+              Assertions.assertTrue(ctx.isSameTypes(mtd, new Class<?>[] {int.class}));
+              Assertions.assertFalse(ctx.isSameTypes(mtd, new Class<?>[] {}));
+              Assertions.assertFalse(ctx.isSameTypes(mtd, new Class<?>[] {long.class}));
+              Assertions.assertFalse(ctx.isSameTypes(mtd, new Class<?>[] {int.class, int.class}));
+
+              TypeMirror entry = ctx.getTypeMirror(Map.Entry.class).get();
+              Assertions.assertTrue(
+                  ctx.isSameType(entry, ctx.getTypeElement("java.util.Map.Entry").get().asType()));
+            });
+    Assertions.assertTrue(result.success());
+  }
+
   @TestTemplate
   public void resourceCopy(CompilerContext context) throws Exception {
     ResourceProcessor processor = new ResourceProcessor();
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.compiler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.gige.CompilationResult;
+import io.gige.CompilerContext;
+import io.gige.Compilers;
+import io.gige.DiagnosticProcessor;
+import io.gige.TestSource;
+import io.gige.Unit;
+
+/** @author taichi */
+public class EclipseCompilerTest {
+
+  @Test
+  public void concurrent() throws Exception {
+    String os = System.getProperty("os.name");
+    int size = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(size);
+    try {
+      List<Callable<Boolean>> tasks = new ArrayList<>();
+      for (int i = 0; i < size * 2; i++) {
+        String simpleName = "C" + i;
+        String source = "package test.concurrent; public class " + simpleName + " {}";
+        tasks.add(
+            () -> {
+              try (CompilerContext context = new CompilerContext(Compilers.Type.Eclipse)) {
+                return context
+                    .set(Locale.JAPANESE)
+                    .inMemory()
+                    .set(Unit.of("test.concurrent." + simpleName, source))
+                    .compile(ctx -> Assertions.assertEquals(os, System.getProperty("os.name")))
+                    .success();
+              }
+            });
+      }
+      for (Future<Boolean> f : executor.invokeAll(tasks)) {
+        Assertions.assertTrue(f.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void classFilesWrittenBehind() throws Exception {
+    // a few batches and the rest
+    int size = 65;
+    try (CompilerContext context = new CompilerContext(Compilers.Type.Eclipse)) {
+      List<Unit> units = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        units.add(Unit.of("test.behind.C" + i, "package test.behind; public class C" + i + " {}"));
+      }
+      Assertions.assertTrue(context.set(units.toArray(Unit[]::new)).compile().success());
+
+      File dir = new File(context.getClassOutputs().get(0), "test/behind");
+      for (int i = 0; i < size; i++) {
+        File f = new File(dir, "C" + i + ".class");
+        Assertions.assertTrue(f.exists(), f.toString());
+      }
+    }
+  }
+
+  @Test
+  public void diagnosticSource() throws Exception {
+    try (CompilerContext context = new CompilerContext(Compilers.Type.Eclipse)) {
+      CompilationResult result =
+          context
+              .setSourcePath("src/test/java")
+              .setUnits(TestSource.class)
+              .set(new DiagnosticProcessor())
+              .compile();
+      Diagnostic<? extends JavaFileObject> error = result.diagnostics().errors().first().get();
+      JavaFileObject source = error.getSource();
+      Assertions.assertNotNull(source);
+      Assertions.assertSame(source, error.getSource());
+      Assertions.assertTrue(source.toUri().getPath().endsWith("io/gige/TestSource.java"));
+    }
+  }
+}
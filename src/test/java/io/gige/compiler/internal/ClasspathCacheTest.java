@@ -0,0 +1,71 @@
+/*
+ * Copyright 2014 - 2020 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.compiler.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.eclipse.jdt.internal.compiler.batch.FileSystem.Classpath;
+import org.eclipse.jdt.internal.compiler.util.Util;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** @author taichi */
+public class ClasspathCacheTest {
+
+  @Test
+  public void jrt() throws Exception {
+    ClasspathCache cache = new ClasspathCache();
+    Classpath first = cache.acquireJrt(Util.getJavaHome());
+    Classpath second = cache.acquireJrt(Util.getJavaHome());
+    Assertions.assertNotNull(first);
+    Assertions.assertSame(first, second);
+    Assertions.assertTrue(cache.release(first));
+    Assertions.assertTrue(cache.release(second));
+    Assertions.assertFalse(cache.release(second));
+  }
+
+  @Test
+  public void archive(@TempDir Path dir) throws Exception {
+    File jar = dir.resolve("a.jar").toFile();
+    this.write(jar, "a.txt");
+
+    ClasspathCache cache = new ClasspathCache();
+    Classpath first = cache.acquireArchive(jar);
+    Assertions.assertNotNull(first);
+    Assertions.assertSame(first, cache.acquireArchive(jar));
+
+    this.write(jar, "a.txt", "b.txt");
+    Classpath changed = cache.acquireArchive(jar);
+    Assertions.assertNotSame(first, changed);
+
+    Assertions.assertNull(cache.acquireArchive(dir.toFile()));
+  }
+
+  void write(File jar, String... entries) throws IOException {
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+      for (String e : entries) {
+        out.putNextEntry(new ZipEntry(e));
+        out.closeEntry();
+      }
+    }
+  }
+}
@@ -1,11 +1,18 @@
 package io.gige.compiler.internal;
 
 import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.Elements;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.TestTemplate;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import io.gige.CompilationResult;
 import io.gige.CompilerContext;
 import io.gige.Compilers;
 import io.gige.Unit;
@@ -34,4 +41,81 @@ public class HackElementsTest {
     var diags = result.getDiagnostics();
     Assertions.assertTrue(diags.isEmpty());
   }
+
+  @TestTemplate
+  @Compilers
+  public void cache(CompilerContext context) throws Exception {
+    var annon =
+        Unit.of(
+            "z.MyAnon",
+            "package z;\r\npublic @interface MyAnon { long value() default Long.MAX_VALUE;}");
+    var cis = Unit.of("z.MyCls", "package z;\r\n" + "@MyAnon\r\n" + "public class MyCls {}");
+    // each default is resolved for more than one binding.
+    var other = Unit.of("z.MyCls2", "package z;\r\n" + "@MyAnon\r\n" + "public class MyCls2 {}");
+
+    var result =
+        fixup(
+            () ->
+                context
+                    .setSourcePath("src/test/java", "src/test/resources")
+                    .set(annon, cis, other)
+                    .set(new MyProcessor())
+                    .compile(
+                        ctx -> {
+                          Elements elements = ctx.getProcessingEnvironment().getElementUtils();
+                          TypeElement element = ctx.getTypeElement("z.MyCls").get();
+                          AnnotationMirror first = element.getAnnotationMirrors().get(0);
+                          AnnotationMirror second = element.getAnnotationMirrors().get(0);
+                          var values = elements.getElementValuesWithDefaults(first);
+                          Assertions.assertEquals(
+                              Long.MAX_VALUE, values.values().iterator().next().getValue());
+                          if (ctx.getProcessingEnvironment() instanceof AnnotationProcessingEnv) {
+                            Assertions.assertTrue(elements instanceof HackElements);
+                            Assertions.assertSame(
+                                values, elements.getElementValuesWithDefaults(second));
+                          }
+                        }));
+    Assertions.assertTrue(result.success());
+    Assertions.assertTrue(result.getDiagnostics().isEmpty());
+  }
+
+  @TestTemplate
+  @Compilers
+  public void enumDefault(CompilerContext context) throws Exception {
+    var e = Unit.of("z.E", "package z;\r\npublic enum E { A, B }");
+    var annon =
+        Unit.of("z.MyAnon", "package z;\r\npublic @interface MyAnon { E value() default E.A;}");
+    var cis = Unit.of("z.MyCls", "package z;\r\n" + "@MyAnon\r\n" + "public class MyCls {}");
+    var other = Unit.of("z.MyCls2", "package z;\r\n" + "@MyAnon\r\n" + "public class MyCls2 {}");
+
+    var result =
+        fixup(
+            () ->
+                context
+                    .setSourcePath("src/test/java", "src/test/resources")
+                    .set(e, annon, cis, other)
+                    .set(new MyProcessor())
+                    .compile(
+                        ctx -> {
+                          Elements elements = ctx.getProcessingEnvironment().getElementUtils();
+                          TypeElement element = ctx.getTypeElement("z.MyCls").get();
+                          AnnotationMirror am = element.getAnnotationMirrors().get(0);
+                          var value =
+                              elements.getElementValuesWithDefaults(am).values().iterator().next();
+                          Assertions.assertEquals(
+                              "A", ((VariableElement) value.getValue()).getSimpleName().toString());
+                        }));
+    Assertions.assertTrue(result.success());
+    Assertions.assertTrue(result.getDiagnostics().isEmpty());
+  }
+
+  /** compiles with {@link HackElements} installed on Eclipse. */
+  static CompilationResult fixup(Callable<CompilationResult> compile) throws Exception {
+    System.setProperty(AnnotationProcessingEnv.FIXUP_DEFAULTS, "true");
+    try {
+      return compile.call();
+    } finally {
+      System.clearProperty(AnnotationProcessingEnv.FIXUP_DEFAULTS);
+    }
+  }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/** @author taichi */
+public class LineDiffTest {
+
+  static String lines(String... lines) {
+    return String.join("\n", lines);
+  }
+
+  static String numbers(int from, int to) {
+    return IntStream.range(from, to).mapToObj(Integer::toString).collect(Collectors.joining("\n"));
+  }
+
+  @Test
+  public void same() {
+    Assertions.assertTrue(new LineDiff().diff(numbers(0, 100), numbers(0, 100)).isEmpty());
+    Assertions.assertTrue(new LineDiff().diff("", "").isEmpty());
+  }
+
+  @Test
+  public void changed() {
+    LineDiff.Result result = new LineDiff().diff(numbers(0, 20), numbers(0, 20).replace("10", "x"));
+    Assertions.assertEquals(1, result.getHunks().size());
+    LineDiff.Hunk hunk = result.getHunks().get(0);
+    Assertions.assertEquals(8, hunk.getExpectedLine());
+    Assertions.assertEquals(7, hunk.getExpectedLength());
+    Assertions.assertEquals(8, hunk.getActualLine());
+    Assertions.assertEquals(7, hunk.getActualLength());
+    Assertions.assertEquals(
+        Arrays.asList(" 7", " 8", " 9", "-10", "+x", " 11", " 12", " 13"), hunk.getLines());
+    Assertions.assertEquals(
+        lines("--- expected", "+++ actual", "@@ -8,7 +8,7 @@", " 7", " 8", " 9", "-10", "+x")
+            + lines("", " 11", " 12", " 13", ""),
+        result.toString());
+  }
+
+  @Test
+  public void trailingLines() {
+    LineDiff.Result result = new LineDiff().diff(numbers(0, 5), numbers(0, 7));
+    Assertions.assertEquals(
+        lines("--- expected", "+++ actual", "@@ -3,3 +3,5 @@", " 2", " 3", " 4", "+5", "+6", ""),
+        result.toString());
+
+    result = new LineDiff().diff(numbers(0, 7), numbers(0, 5));
+    Assertions.assertEquals(Arrays.asList(" 2", " 3", " 4", "-5", "-6"), hunk(result).getLines());
+  }
+
+  @Test
+  public void leadingLines() {
+    LineDiff.Result result = new LineDiff().diff(numbers(0, 10), numbers(2, 10));
+    LineDiff.Hunk hunk = hunk(result);
+    Assertions.assertEquals(Arrays.asList("-0", "-1", " 2", " 3", " 4"), hunk.getLines());
+    Assertions.assertEquals(3, hunk.getActualLength());
+    Assertions.assertEquals("@@ -1,5 +1,3 @@\n", hunk.toString().substring(0, 16));
+
+    hunk = hunk(new LineDiff().diff("", "a"));
+    Assertions.assertEquals("@@ -0,0 +1,1 @@\n+a\n", hunk.toString());
+  }
+
+  @Test
+  public void minimal() {
+    // the example of Myers' paper. the shortest edit script is 5.
+    LineDiff.Result result =
+        new LineDiff(0, 10)
+            .diff(lines("a", "b", "c", "a", "b", "b", "a"), lines("c", "b", "a", "b", "a", "c"));
+    long edits =
+        result.getHunks().stream()
+            .flatMap(h -> h.getLines().stream())
+            .filter(s -> s.charAt(0) != ' ')
+            .count();
+    Assertions.assertEquals(5, edits);
+  }
+
+  @Test
+  public void hunks() {
+    String expected = numbers(0, 100);
+    String actual = expected.replace("\n10\n", "\nx\n").replace("\n16\n", "\ny\n");
+    // up to 6 lines between changes are shared as their context.
+    Assertions.assertEquals(1, new LineDiff().diff(expected, actual).getHunks().size());
+
+    actual = expected.replace("\n10\n", "\nx\n").replace("\n18\n", "\ny\n");
+    List<LineDiff.Hunk> hunks = new LineDiff().diff(expected, actual).getHunks();
+    Assertions.assertEquals(2, hunks.size());
+    Assertions.assertEquals(16, hunks.get(1).getExpectedLine());
+  }
+
+  @Test
+  public void maxHunks() {
+    String expected = numbers(0, 1000);
+    String actual = expected.replaceAll("(?m)^(\\d*)0$", "$1x");
+    LineDiff.Result result = new LineDiff(1, 3).diff(expected, actual);
+    Assertions.assertEquals(3, result.getHunks().size());
+    Assertions.assertTrue(result.isTruncated());
+    Assertions.assertTrue(result.toString().endsWith("...\n"));
+    Assertions.assertFalse(new LineDiff(1, 100).diff(expected, actual).isTruncated());
+  }
+
+  @Test
+  public void stopAtMaxHunks() {
+    List<String> expected = Arrays.asList(numbers(0, 1000).split("\n"));
+    List<String> actual =
+        expected.stream().map(s -> s.replaceAll("0$", "x")).collect(Collectors.toList());
+    LineDiff.Script full = new LineDiff.Script(expected, actual);
+    full.compare(1, Integer.MAX_VALUE);
+    Assertions.assertTrue(full.deleted[990]);
+
+    LineDiff.Script script = new LineDiff.Script(expected, actual);
+    script.compare(1, 3);
+    Assertions.assertTrue(script.deleted[20]);
+    Assertions.assertFalse(script.deleted[990]);
+
+    String left = String.join("\n", expected);
+    String right = String.join("\n", actual);
+    List<LineDiff.Hunk> truncated = new LineDiff(1, 3).diff(left, right).getHunks();
+    List<LineDiff.Hunk> all = new LineDiff(1, 1000).diff(left, right).getHunks();
+    Assertions.assertEquals(100, all.size());
+    Assertions.assertEquals(3, truncated.size());
+    for (int i = 0; i < truncated.size(); i++) {
+      Assertions.assertEquals(all.get(i).toString(), truncated.get(i).toString());
+    }
+  }
+
+  static LineDiff.Hunk hunk(LineDiff.Result result) {
+    Assertions.assertEquals(1, result.getHunks().size());
+    return result.getHunks().get(0);
+  }
+}
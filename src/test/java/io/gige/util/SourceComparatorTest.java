@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 - 2015 SATO taichi
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package io.gige.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.gige.util.SourceComparator.Normalization;
+
+/** @author taichi */
+public class SourceComparatorTest {
+
+  @Test
+  public void exact() {
+    SourceComparator target = SourceComparator.EXACT;
+    Assertions.assertTrue(target.matches("a\nb\n", "a\nb"));
+    Assertions.assertFalse(target.matches("a\nb", "a\nb\nc"));
+    Assertions.assertFalse(target.matches("a\r\nb", "a\nb"));
+    Assertions.assertFalse(target.matches("a b", "a  b"));
+    Assertions.assertTrue(target.matches("", ""));
+  }
+
+  @Test
+  public void lineEndings() {
+    SourceComparator target = SourceComparator.of(Normalization.LINE_ENDINGS);
+    Assertions.assertTrue(target.matches("a\r\nb\rc", "a\nb\nc"));
+    Assertions.assertFalse(target.matches("a\r\rb", "a\nb"));
+    Assertions.assertEquals("a\n\nb\n", target.normalize("a\r\rb"));
+  }
+
+  @Test
+  public void whitespace() {
+    SourceComparator target = SourceComparator.of(Normalization.WHITESPACE);
+    Assertions.assertTrue(target.matches("  int  a =\t1; ", "int a = 1;"));
+    Assertions.assertFalse(target.matches("int a=1;", "int a = 1;"));
+    Assertions.assertFalse(target.matches("a\n\nb", "a\nb"));
+  }
+
+  @Test
+  public void blankLines() {
+    SourceComparator target = SourceComparator.of(Normalization.BLANK_LINES);
+    Assertions.assertTrue(target.matches("a\n\n  \nb\n\n", "a\nb"));
+    Assertions.assertFalse(target.matches("a\nb", "b\na"));
+  }
+
+  @Test
+  public void imports() {
+    SourceComparator target = SourceComparator.of(Normalization.IMPORTS);
+    String expected =
+        String.join(
+            "\n",
+            "package a;",
+            "",
+            "import java.util.List;",
+            "import java.io.File;",
+            "",
+            "import static java.util.Objects.requireNonNull;",
+            "",
+            "public class B {}");
+    String actual =
+        String.join(
+            "\n",
+            "package a;",
+            "",
+            "import java.io.File;",
+            "import java.util.List;",
+            "import static java.util.Objects.requireNonNull;",
+            "",
+            "public class B {}");
+    Assertions.assertTrue(target.matches(expected, actual));
+    Assertions.assertFalse(SourceComparator.EXACT.matches(expected, actual));
+    Assertions.assertFalse(target.matches(expected, actual.replace("\n\npublic", "\npublic")));
+  }
+
+  @Test
+  public void diff() {
+    LineDiff.Result result = SourceComparator.LENIENT.diff("a\r\n  b  c\r\nd", "a\n\nb c\ne");
+    Assertions.assertEquals(
+        String.join(
+            "\n", "--- expected", "+++ actual", "@@ -1,3 +1,3 @@", " a", " b c", "-d", "+e", ""),
+        result.toString());
+  }
+}
@@ -15,10 +15,13 @@
  */
 package io.gige.util;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.stream.Stream;
 
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
 
@@ -29,6 +32,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import io.gige.CompilerContext;
 import io.gige.Compilers;
 import io.gige.TestSource;
+import io.gige.Unit;
 import io.gige.junit.CompilerExtension;
 
 /** @author taichi */
@@ -60,6 +64,36 @@ public class TypeHierarchyTest {;
                     return l + " " + r;
                   })
               .forEach(System.out::println);
+          Assertions.assertNotNull(Memo.current.get());
         });
+    // memos do not keep the environment after the compilation.
+    Assertions.assertNull(Memo.current.get());
+  }
+
+  @TestTemplate
+  @Compilers
+  public void unresolved(CompilerContext context) throws Exception {
+    List<TypeElement> checked = new ArrayList<>();
+    context
+        .set(Unit.of("aaa.Broken", "package aaa; public class Broken extends Missing {}"))
+        .set(diag -> {})
+        .compile(
+            ctx -> {
+              ProcessingEnvironment env = ctx.getProcessingEnvironment();
+              TypeElement broken =
+                  ctx.getTypeElement("aaa.Broken").orElseThrow(AssertionError::new);
+              TypeHierarchy.linearized(env, broken);
+              Memo memo = Memo.current.get();
+              // Missing may be generated in a later round.
+              Assertions.assertFalse(memo.supertypes.containsKey(broken));
+              Assertions.assertFalse(memo.linearized.containsKey(broken));
+
+              TypeElement string =
+                  ctx.getTypeElement(String.class).orElseThrow(AssertionError::new);
+              TypeHierarchy.linearized(env, string);
+              Assertions.assertTrue(memo.linearized.containsKey(string));
+              checked.add(broken);
+            });
+    Assertions.assertEquals(1, checked.size());
   }
 }
@@ -15,8 +15,13 @@
  */
 package io.gige.util;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Assertions;
@@ -67,4 +72,55 @@ public class ZipperTest {
     Assertions.assertEquals("1 10", zipped.get(0));
     Assertions.assertEquals("2 20", zipped.get(1));
   }
+
+  @Test
+  public void parallel() throws Exception {
+    List<Integer> lefts = IntStream.range(0, 10000).boxed().collect(Collectors.toList());
+    List<Integer> rights = IntStream.range(0, 7000).boxed().collect(Collectors.toList());
+    List<String> zipped =
+        Zipper.of(lefts.stream(), rights.stream(), (l, r) -> l + " " + r)
+            .parallel()
+            .collect(Collectors.toList());
+    Assertions.assertEquals(7000, zipped.size());
+    for (int i = 0; i < zipped.size(); i++) {
+      Assertions.assertEquals(i + " " + i, zipped.get(i));
+    }
+  }
+
+  @Test
+  public void split() throws Exception {
+    Zipper<Integer, Integer, Integer> sized =
+        new Zipper<>(
+            List.of(1, 2, 3, 4).spliterator(), List.of(10, 20, 30).spliterator(), Integer::sum);
+    Assertions.assertTrue(sized.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+    Assertions.assertEquals(3, sized.estimateSize());
+    Spliterator<Integer> prefix = sized.trySplit();
+    Assertions.assertNotNull(prefix);
+    List<Integer> values = new ArrayList<>();
+    prefix.forEachRemaining(values::add);
+    sized.forEachRemaining(values::add);
+    Assertions.assertEquals(List.of(11, 22, 33), values);
+
+    Zipper<Integer, Integer, Integer> unsized =
+        new Zipper<>(
+            Stream.iterate(1, i -> i + 1).spliterator(),
+            List.of(1, 2).spliterator(),
+            Integer::sum);
+    Assertions.assertNull(unsized.trySplit());
+    Assertions.assertFalse(unsized.hasCharacteristics(Spliterator.SIZED));
+  }
+
+  @Test
+  public void primitives() throws Exception {
+    Assertions.assertArrayEquals(
+        new int[] {11, 22},
+        Zipper.ofInt(IntStream.of(1, 2, 3), IntStream.of(10, 20), Integer::sum).toArray());
+    Assertions.assertTrue(
+        Zipper.ofLong(LongStream.range(0, 5000), LongStream.range(0, 5000), (l, r) -> l - r)
+            .parallel()
+            .allMatch(l -> l == 0));
+    Assertions.assertEquals(
+        1.5,
+        Zipper.ofDouble(DoubleStream.of(1.0, 2.0), DoubleStream.of(0.5), Double::sum).sum());
+  }
 }